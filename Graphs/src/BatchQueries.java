@@ -0,0 +1,242 @@
+/*
+ *    BatchQueries - answers a file of queries against a graph, many at
+ *                   once, and writes the results in input order.
+ *
+ *    Each line of the query file is one query, in the words of the
+ *    interactive commands:
+ *          d  start          - depth first order from start
+ *          b  start          - breadth first order from start
+ *          dij  start        - shortest distance to every vertex
+ *          p  start  target  - shortest path between two vertices
+ *          e                 - whether every vertex has even degree
+ *    Blank lines are skipped.
+ *
+ *    Queries only read the graph, so they run concurrently: on virtual
+ *    threads when the JVM has them (Java 21 on) and otherwise on a pool
+ *    of one thread per processor.  At most IN_FLIGHT_PER_CPU queries per
+ *    processor are outstanding, and the oldest is written as soon as it
+ *    is done, so the output keeps the input order and memory stays
+ *    bounded however long the file is.  Each result is headed by its
+ *    query and latency; run() returns the throughput and latency
+ *    percentiles of the whole batch.
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class BatchQueries {
+	static final int IN_FLIGHT_PER_CPU = 8;
+
+	private final Graph g;
+	private final ConcurrentLinkedQueue<PointToPoint> engines;   // Idle engines for p queries.
+	private long[] latencies;     // The latency of each query written, in nanoseconds.
+	private int count;            // The number of queries written.
+
+	/*
+	 *   BatchQueries() constructor - queries against g, which must not
+	 *                                change while a batch runs.
+	 */
+
+	public BatchQueries(Graph g) {
+		this.g = g;
+		engines = new ConcurrentLinkedQueue<PointToPoint>();
+	}
+
+	/*
+	 *   run() - answer the queries in the file at queryPath, writing the
+	 *           results to the file at resultPath, and return a summary.
+	 */
+
+	public String run(String queryPath, String resultPath) throws IOException {
+		latencies = new long[1024];
+		count = 0;
+		int cpus = Runtime.getRuntime().availableProcessors();
+		String threads = "virtual threads";
+		ExecutorService executor = newVirtualExecutor();
+		if (executor == null) {
+			threads = cpus + ((cpus == 1) ? " thread" : " threads");
+			executor = Executors.newFixedThreadPool(cpus);
+		}
+		int window = IN_FLIGHT_PER_CPU * cpus;
+
+		long start = System.nanoTime();
+		try (BufferedReader in = Files.newBufferedReader(Paths.get(queryPath));
+				PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(resultPath)))) {
+			ArrayDeque<Future<Result>> inFlight = new ArrayDeque<Future<Result>>();
+			String line;
+			while ((line = in.readLine()) != null) {
+				final String query = line.trim();
+				if (query.isEmpty())
+					continue;
+				if (inFlight.size() == window)
+					write(inFlight.removeFirst(), out);
+				inFlight.add(executor.submit(new Callable<Result>() {
+					public Result call() {
+						return answer(query);
+					}
+				}));
+			}
+			while (!inFlight.isEmpty())
+				write(inFlight.removeFirst(), out);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		long nanos = System.nanoTime() - start;
+
+		long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		return String.format("%d queries in %.3f s on %s, %.0f queries/s; latency p50 %s, p99 %s, max %s",
+				count, nanos / 1e9, threads, (nanos == 0) ? 0 : count * 1e9 / nanos,
+				micros(percentile(sorted, 50)), micros(percentile(sorted, 99)), micros(percentile(sorted, 100)));
+	}
+
+	/*
+	 *   answer() - run one query, catching its errors into the result.
+	 */
+
+	Result answer(String query) {
+		long start = System.nanoTime();
+		StringBuilder text = new StringBuilder();
+		String[] words = query.split("\\s+");
+		String alg = words[0];
+
+		try {
+			if (alg.equals("d") || alg.equals("b")) {
+				int source = vertex(words, 1, text);
+				if (source != -1) {
+					int[] order = alg.equals("d") ? GraphAlgs.depthFirstOrder(source, g)
+							: GraphAlgs.breadthFirstOrder(source, g);
+					for (int v : order)
+						text.append(g.vertexAt(v).getLabel()).append('\n');
+				}
+			}
+			else if (alg.equals("dij")) {
+				int source = vertex(words, 1, text);
+				if (source != -1)
+					text.append(GraphAlgs.formatShortestPaths(GraphAlgs.dijkstra(source, g), g));
+			}
+			else if (alg.equals("p")) {
+				int source = vertex(words, 1, text);
+				int target = (source == -1) ? -1 : vertex(words, 2, text);
+				if (target != -1) {
+					PointToPoint engine = engines.poll();
+					if (engine == null)
+						engine = new PointToPoint(g);
+					Route route = engine.bidirectional(source, target);
+					engines.offer(engine);
+
+					if (!route.isReachable())
+						text.append("unreachable\n");
+					else {
+						for (int v : route.getPath())
+							text.append(g.vertexAt(v).getLabel()).append(' ');
+						text.append(String.format("\nDistance %d, %d vertices settled\n",
+								route.getDistance(), route.getSettled()));
+					}
+				}
+			}
+			else if (alg.equals("e"))
+				text.append(g.allEven() ? "All vertices have even degree.\n"
+						: "Some vertices have odd degree or zero degrees.\n");
+			else
+				text.append("Unknown query\n");
+		}
+		catch (RuntimeException e) {
+			text.append("Failed: ").append(e).append('\n');
+		}
+
+		return new Result(query, text.toString(), System.nanoTime() - start);
+	}
+
+	/*
+	 *   vertex() - the index of the vertex named by words[i], or -1 after
+	 *              noting in text why there is none.
+	 */
+
+	private int vertex(String[] words, int i, StringBuilder text) {
+		int v = (i < words.length) ? g.indexOf(words[i]) : -1;
+		if (v == -1)
+			text.append("That vertex is not in the graph\n");
+		return v;
+	}
+
+	/*
+	 *   write() - wait for a query and write its result.
+	 */
+
+	private void write(Future<Result> pending, PrintWriter out) throws IOException {
+		Result r;
+		try {
+			r = pending.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for a query");
+		}
+		catch (ExecutionException e) {
+			throw new IOException("Query failed", e.getCause());
+		}
+
+		out.printf("> %s   [%s]\n", r.query, micros(r.nanos));
+		out.print(r.text);
+
+		if (count == latencies.length)
+			latencies = Arrays.copyOf(latencies, count * 2);
+		latencies[count++] = r.nanos;
+	}
+
+	/*
+	 *   newVirtualExecutor() - an executor starting a virtual thread per
+	 *                          task, or null before Java 21.  Found by
+	 *                          reflection so the class still runs on Java 8.
+	 */
+
+	static ExecutorService newVirtualExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	private static long percentile(long[] sorted, int p) {
+		if (sorted.length == 0)
+			return 0;
+		int i = (int) Math.ceil(sorted.length * p / 100.0) - 1;
+		return sorted[Math.max(i, 0)];
+	}
+
+	private static String micros(long nanos) {
+		return (nanos / 1000) + " us";
+	}
+
+	/*
+	 *   Result - one query, its output and how long it took.
+	 */
+
+	static class Result {
+		final String query;
+		final String text;
+		final long nanos;
+
+		Result(String query, String text, long nanos) {
+			this.query = query;
+			this.text = text;
+			this.nanos = nanos;
+		}
+	}
+}
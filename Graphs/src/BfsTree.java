@@ -0,0 +1,56 @@
+/*
+ *    BfsTree - the result of a breadth-first search.
+ *
+ *    Both arrays are indexed by vertex index.  level[v] is the number of
+ *    edges on a shortest path from the source to v, or -1 if v was not
+ *    reached, and parent[v] is the vertex that discovered v, or -1 for the
+ *    source and for unreached vertices.
+ */
+
+public class BfsTree {
+	private int source;     // Index of the source vertex.
+	private int[] level;    // Hop distance of every vertex.
+	private int[] parent;   // Discovering vertex of every vertex.
+	private int depth;      // The number of levels below the source.
+
+	/*
+	 *   BfsTree() constructor - takes ownership of the arrays.
+	 */
+
+	public BfsTree(int source, int[] level, int[] parent, int depth)
+	{
+		this.source = source;
+		this.level = level;
+		this.parent = parent;
+		this.depth = depth;
+	}
+
+	public int getSource()
+	{
+		return source;
+	}
+
+	public int[] getLevels()
+	{
+		return level;
+	}
+
+	public int[] getParents()
+	{
+		return parent;
+	}
+
+	public int getDepth()
+	{
+		return depth;
+	}
+
+	/*
+	 *   isReached() - return whether v was reached from the source.
+	 */
+
+	public boolean isReached(int v)
+	{
+		return level[v] != -1;
+	}
+}
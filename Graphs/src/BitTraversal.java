@@ -0,0 +1,170 @@
+/*
+ *    BitTraversal - traversals of a WtGraph that work on its bit matrix
+ *                   (see WtGraph.adjacencyBits), 64 vertices a word.
+ *
+ *    A set of vertices is a long[] with bit v of word v / 64 set for
+ *    vertex v.  Taking the unvisited neighbors of u is row(u) & ~visited
+ *    over V / 64 words, rather than V tests of an int, which is what
+ *    makes the dense graphs WtGraph is meant for cheap to traverse:
+ *
+ *      breadthFirstOrder(),
+ *      depthFirstOrder()    - the same orders as GraphAlgs gives, which
+ *                             uses these for a WtGraph.
+ *      reachable()          - the vertices reachable from a source, one
+ *                             level of the search at a time.
+ *      transitiveClosure()  - every vertex's reachable set, by Warshall's
+ *                             algorithm on whole rows: at most V^3 / 64
+ *                             word operations, 4 x 10^8 at 3000 vertices,
+ *                             and only rows that reach k take part in k's
+ *                             round.
+ *
+ *    A vertex reaches itself.  In a directed graph the search follows
+ *    the edges' direction.  These only read the graph, so threads may
+ *    run them at once while nothing changes it.
+ */
+
+import java.util.Arrays;
+
+public class BitTraversal {
+
+	private BitTraversal() {
+	}
+
+	/*
+	 *   breadthFirstOrder() - the vertex indices in breadth first order
+	 *                         from start, neighbors in index order.
+	 */
+
+	public static int[] breadthFirstOrder(int start, WtGraph g) {
+		long[] visited = new long[words(g)];
+		IntList order = new IntList();   // The queue is the order itself.
+		visited[start >>> 6] |= 1L << start;
+		order.add(start);
+
+		for (int front = 0; front < order.size(); front++) {
+			long[] row = g.adjacencyBits(order.get(front));
+			for (int w = 0; w < visited.length; w++) {
+				long fresh = row[w] & ~visited[w];
+				visited[w] |= fresh;
+				for (; fresh != 0; fresh &= fresh - 1)
+					order.add((w << 6) + Long.numberOfTrailingZeros(fresh));
+			}
+		}
+		return order.toArray();
+	}
+
+	/*
+	 *   depthFirstOrder() - the vertex indices in depth first order from
+	 *                       start.  As in GraphAlgs, a vertex pushes its
+	 *                       unvisited neighbors in index order and the
+	 *                       last pushed is visited next.
+	 */
+
+	public static int[] depthFirstOrder(int start, WtGraph g) {
+		long[] visited = new long[words(g)];
+		IntList stack = new IntList();
+		IntList order = new IntList();
+		stack.add(start);
+
+		while (!stack.isEmpty()) {
+			int u = stack.removeLast();
+			if ((visited[u >>> 6] & (1L << u)) != 0)
+				continue;
+			visited[u >>> 6] |= 1L << u;
+			order.add(u);
+
+			long[] row = g.adjacencyBits(u);
+			for (int w = 0; w < visited.length; w++)
+				for (long fresh = row[w] & ~visited[w]; fresh != 0; fresh &= fresh - 1)
+					stack.add((w << 6) + Long.numberOfTrailingZeros(fresh));
+		}
+		return order.toArray();
+	}
+
+	/*
+	 *   reachable() - the set of vertices reachable from source.  Each
+	 *                 round ORs together the rows of the frontier and
+	 *                 keeps what is new as the next frontier.
+	 */
+
+	public static long[] reachable(int source, WtGraph g) {
+		int words = words(g);
+		long[] visited = new long[words];
+		long[] frontier = new long[words];
+		long[] next = new long[words];
+		visited[source >>> 6] = frontier[source >>> 6] = 1L << source;
+
+		for (boolean more = true; more; ) {
+			Arrays.fill(next, 0L);
+			for (int w = 0; w < words; w++)
+				for (long bits = frontier[w]; bits != 0; bits &= bits - 1)
+					or(next, g.adjacencyBits((w << 6) + Long.numberOfTrailingZeros(bits)), words);
+
+			more = false;
+			for (int w = 0; w < words; w++) {
+				next[w] &= ~visited[w];
+				visited[w] |= next[w];
+				more |= next[w] != 0;
+			}
+			long[] t = frontier;
+			frontier = next;
+			next = t;
+		}
+		return visited;
+	}
+
+	/*
+	 *   transitiveClosure() - closure[u] is the set of vertices reachable
+	 *                         from u; a dead slot's set is empty.  Warshall:
+	 *                         once the paths through 0 .. k-1 are known, any
+	 *                         row that reaches k gains all of row k.
+	 */
+
+	public static long[][] transitiveClosure(WtGraph g) {
+		int n = g.getSize();
+		int words = words(g);
+		long[][] closure = new long[n][];
+		for (int u = 0; u < n; u++) {
+			closure[u] = Arrays.copyOf(g.adjacencyBits(u), words);
+			if (g.vertexAt(u) != null)
+				closure[u][u >>> 6] |= 1L << u;
+		}
+
+		for (int k = 0; k < n; k++) {
+			long[] through = closure[k];
+			long bit = 1L << k;
+			for (int i = 0; i < n; i++)
+				if (i != k && (closure[i][k >>> 6] & bit) != 0)
+					or(closure[i], through, words);
+		}
+		return closure;
+	}
+
+	/*
+	 *   contains() - return whether vertex v is in set.
+	 */
+
+	public static boolean contains(long[] set, int v) {
+		return (set[v >>> 6] & (1L << v)) != 0;
+	}
+
+	/*
+	 *   count() - return the number of vertices in set.
+	 */
+
+	public static int count(long[] set) {
+		int count = 0;
+		for (long word : set)
+			count += Long.bitCount(word);
+		return count;
+	}
+
+	private static void or(long[] into, long[] from, int words) {
+		for (int w = 0; w < words; w++)
+			into[w] |= from[w];
+	}
+
+	private static int words(WtGraph g) {   // Words covering the vertex slots in use.
+		return (g.getSize() + 63) >>> 6;
+	}
+}
@@ -0,0 +1,459 @@
+/*
+ *    ContractionHierarchy - a graph preprocessed for fast shortest path
+ *                           queries (Geisberger, Sanders, Schultes and
+ *                           Delling's contraction hierarchies).
+ *
+ *    build() removes ("contracts") the vertices one at a time, least
+ *    important first.  Contracting v adds a shortcut u - x weighing
+ *    w(u,v) + w(v,x) between each pair of its remaining neighbors unless a
+ *    local witness search finds a path from u to x at least as short that
+ *    avoids v.  A vertex's importance is twice its edge difference -
+ *    shortcuts added less edges removed - plus the number of its neighbors
+ *    already contracted and its depth in the hierarchy.  It is updated
+ *    lazily: a vertex reaching the front of the queue is re-evaluated and
+ *    put back if it is no longer the least important, so each contraction
+ *    costs its own witness searches rather than those of every neighbor.
+ *
+ *    What remains is the upward graph: each vertex with the edges and
+ *    shortcuts to neighbors contracted after it.  Every shortest path has
+ *    a version that climbs in rank and then descends, so HierarchyQuery
+ *    answers a query with two small upward searches.  A shortcut records
+ *    the vertex it bypasses so a path can be unpacked to original edges.
+ *
+ *    save() and load() keep the hierarchy in the little-endian, CRC32
+ *    checked layout of GraphSnapshot, so the preprocessing is paid once:
+ *
+ *        header    MAGIC, VERSION, V, entries, CRC32 of the rest
+ *        rank      int[V]
+ *        offsets   int[V+1]  - the upward edges of v are offsets[v] ..
+ *        targets   int[E]
+ *        weights   int[E]
+ *        middles   int[E]    - the bypassed vertex, or -1 for an edge
+ *
+ *    Edge weights must not be negative.  A hierarchy is immutable and may
+ *    be shared by any number of HierarchyQuery instances.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+public class ContractionHierarchy {
+	public static final long MAGIC = 0x4549484348505247L;   // "GRPHCHIE"
+	public static final int VERSION = 1;
+	private static final int HEADER_BYTES = 32;
+	private static final int WITNESS_SETTLE_LIMIT = 500;   // Vertices per witness search,
+	private static final int ESTIMATE_SETTLE_LIMIT = 50;   //   and per search when only
+	                                                       //   estimating a priority.
+
+	final int[] rank;       // rank[v] is the position of v in the contraction order.
+	final int[] offsets;    // The upward edges of v are offsets[v] .. offsets[v+1]-1
+	final int[] targets;    //   of targets[], weights[] and middles[].
+	final int[] weights;
+	final int[] middles;
+
+	private ContractionHierarchy(int[] rank, int[] offsets, int[] targets, int[] weights, int[] middles) {
+		this.rank = rank;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.middles = middles;
+	}
+
+	public int getSize() {
+		return rank.length;
+	}
+
+	/*
+	 *   getShortcutCount() - return the number of upward entries that are
+	 *                        shortcuts rather than edges of the graph.
+	 */
+
+	public int getShortcutCount() {
+		int count = 0;
+		for (int m : middles)
+			if (m != -1)
+				count++;
+		return count;
+	}
+
+	/*
+	 *   build() - order and contract the vertices of g, which must be
+	 *             undirected.
+	 */
+
+	public static ContractionHierarchy build(Graph g) {
+		if (g.isDirected())
+			throw new IllegalArgumentException("Contraction hierarchies need an undirected graph");
+		return new Builder(g).run();
+	}
+
+	/*
+	 *   findUp() - return the upward entry from a to b, or -1.
+	 */
+
+	int findUp(int a, int b) {
+		for (int e = offsets[a]; e < offsets[a + 1]; e++)
+			if (targets[e] == b)
+				return e;
+		return -1;
+	}
+
+	/*
+	 *   middle() - return the vertex the edge between a and b bypasses, or
+	 *              -1 if it is an edge of the original graph.
+	 */
+
+	int middle(int a, int b) {
+		int e = (rank[a] < rank[b]) ? findUp(a, b) : findUp(b, a);
+		return middles[e];
+	}
+
+	/*
+	 *   save() - write the hierarchy to path.
+	 */
+
+	public void save(String path) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			GraphSnapshot.Writer out = new GraphSnapshot.Writer(channel, HEADER_BYTES);
+			for (int[] section : new int[][] { rank, offsets, targets, weights, middles }) {
+				for (int value : section)
+					out.putInt(value);
+				out.pad();
+			}
+			out.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putLong(MAGIC).putInt(VERSION).putInt(rank.length).putLong(targets.length)
+					.putLong(out.crc.getValue());
+			header.clear();
+			channel.write(header, 0);
+		}
+	}
+
+	/*
+	 *   load() - read a hierarchy written by save(), checking its checksum.
+	 */
+
+	public static ContractionHierarchy load(String path) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_BYTES)
+				throw new IOException("Not a contraction hierarchy: too short");
+
+			ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			if (buf.getLong() != MAGIC)
+				throw new IOException("Not a contraction hierarchy: bad magic number");
+			int version = buf.getInt();
+			int n = buf.getInt();
+			long entries = buf.getLong();
+			long checksum = buf.getLong();
+
+			if (version != VERSION)
+				throw new IOException("Unsupported contraction hierarchy version " + version);
+			long rankAt = HEADER_BYTES;
+			long offsetsAt = rankAt + GraphSnapshot.align(4L * n);
+			long targetsAt = offsetsAt + GraphSnapshot.align(4L * (n + 1));
+			long weightsAt = targetsAt + GraphSnapshot.align(4L * entries);
+			long middlesAt = weightsAt + GraphSnapshot.align(4L * entries);
+			long end = middlesAt + GraphSnapshot.align(4L * entries);
+			if (n < 0 || entries < 0 || entries > Integer.MAX_VALUE || end != channel.size())
+				throw new IOException("Corrupt contraction hierarchy: section sizes don't match the file");
+
+			CRC32 crc = new CRC32();
+			for (long pos = HEADER_BYTES; pos < end; pos += GraphSnapshot.MAP_WINDOW)
+				crc.update(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(GraphSnapshot.MAP_WINDOW, end - pos)));
+			if (crc.getValue() != checksum)
+				throw new IOException("Corrupt contraction hierarchy: checksum mismatch");
+
+			int m = (int) entries;
+			return new ContractionHierarchy(GraphSnapshot.readInts(channel, rankAt, n),
+					GraphSnapshot.readInts(channel, offsetsAt, n + 1),
+					GraphSnapshot.readInts(channel, targetsAt, m),
+					GraphSnapshot.readInts(channel, weightsAt, m),
+					GraphSnapshot.readInts(channel, middlesAt, m));
+		}
+	}
+
+	/*
+	 *   Builder - the state of one contraction: the remaining graph as
+	 *             growable adjacency lists, and a witness search.
+	 */
+
+	private static class Builder {
+		final int n;
+		final IntList[] adj;        // adj[v] holds (neighbor, weight, middle) triples
+		                            //   of v's edges in the remaining graph.
+		final boolean[] contracted;
+		final int[] deleted;        // The number of contracted neighbors of each vertex.
+		final int[] depth;          // One more than the deepest contracted neighbor.
+		final IntList[] up;         // up[v] holds the upward triples of v once contracted.
+		final int[] slot;           // While adj[a] is indexed, slot[b] is the triple of
+		                            //   the edge from a to b, or -1.
+
+		// Witness search state, stamped per search as in PointToPoint.
+		final int[] dist;
+		final int[] reached;
+		final int[] wanted;         // wanted[x] == search: x is a target of the search.
+		final IndexedHeap heap;
+		int search;
+
+		Builder(Graph g) {
+			n = g.getSize();
+			adj = new IntList[n];
+			up = new IntList[n];
+			contracted = new boolean[n];
+			deleted = new int[n];
+			depth = new int[n];
+			dist = new int[n];
+			reached = new int[n];
+			wanted = new int[n];
+			heap = new IndexedHeap(n);
+			slot = new int[n];
+			Arrays.fill(slot, -1);
+
+			NeighborCursor c = g.neighborCursor();
+			for (int v = 0; v < n; v++) {
+				adj[v] = new IntList(3 * Math.max(1, g.degree(v)));
+				for (c.start(v); c.next(); )
+					if (c.vertex() != v)   // A self-loop is on no shortest path.
+						addEdge(v, c.vertex(), c.weight(), -1);
+				unindex(v);
+			}
+		}
+
+		ContractionHierarchy run() {
+			IndexedHeap queue = new IndexedHeap(n);
+			for (int v = 0; v < n; v++)
+				queue.insert(v, priority(v));
+
+			int[] rank = new int[n];
+			int next = 0;
+			while (!queue.isEmpty()) {
+				int v = queue.removeMin();
+				int p = priority(v);   // Lazy update: requeue v if it got worse.
+				if (!queue.isEmpty() && p > queue.minKey()) {
+					queue.insert(v, p);
+					continue;
+				}
+				rank[v] = next++;
+				IntList neighbors = adj[v];
+				contract(v, false);
+				for (int i = 0; i < neighbors.size(); i += 3) {
+					int u = neighbors.get(i);
+					depth[u] = Math.max(depth[u], depth[v] + 1);
+				}
+			}
+
+			int[] offsets = new int[n + 1];
+			for (int v = 0; v < n; v++)
+				offsets[v + 1] = offsets[v] + up[v].size() / 3;
+			int[] targets = new int[offsets[n]];
+			int[] weights = new int[offsets[n]];
+			int[] middles = new int[offsets[n]];
+			for (int v = 0; v < n; v++) {
+				IntList list = up[v];
+				for (int i = 0, e = offsets[v]; i < list.size(); i += 3, e++) {
+					targets[e] = list.get(i);
+					weights[e] = list.get(i + 1);
+					middles[e] = list.get(i + 2);
+				}
+				up[v] = null;
+			}
+			return new ContractionHierarchy(rank, offsets, targets, weights, middles);
+		}
+
+		/*
+		 *   priority() - twice the edge difference of contracting v, plus
+		 *                its contracted neighbors and its depth, which
+		 *                spread the contraction evenly over the graph and
+		 *                keep the hierarchy shallow.
+		 */
+
+		int priority(int v) {
+			return 2 * (contract(v, true) - adj[v].size() / 3) + deleted[v] + depth[v];
+		}
+
+		/*
+		 *   contract() - return the number of shortcuts contracting v needs,
+		 *                and unless simulating add them and remove v.
+		 */
+
+		int contract(int v, boolean simulate) {
+			IntList edges = adj[v];
+			int degree = edges.size() / 3;
+			int maxOut = 0;
+			for (int i = 0; i < edges.size(); i += 3)
+				maxOut = Math.max(maxOut, edges.get(i + 1));
+
+			int shortcuts = 0;
+			IntList added = simulate ? null : new IntList();   // Pairs of neighbor positions.
+			for (int i = 0; i < degree - 1; i++) {
+				int u = edges.get(3 * i);
+				int wu = edges.get(3 * i + 1);
+				search++;
+				for (int j = i + 1; j < degree; j++)
+					wanted[edges.get(3 * j)] = search;
+				witnessSearch(u, v, (long) wu + maxOut, degree - 1 - i,
+						simulate ? ESTIMATE_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+
+				for (int j = i + 1; j < degree; j++) {
+					int x = edges.get(3 * j);
+					long need = (long) wu + edges.get(3 * j + 1);
+					if (reached[x] == search && dist[x] <= need)
+						continue;   // A witness path makes the shortcut unnecessary.
+					shortcuts++;
+					if (!simulate) {
+						added.add(i);
+						added.add(j);
+					}
+				}
+			}
+			if (simulate)
+				return shortcuts;
+
+			// Sort the shortcuts by neighbor, each under both ends, so every
+			// neighbor's edges are indexed once for all its changes.
+			int[] start = new int[degree + 1];   // Neighbor i's shortcuts go to the
+			for (int k = 0; k < added.size(); k++) //   positions partner[start[i] ..
+				start[added.get(k) + 1]++;         //   start[i+1]-1].
+			for (int i = 0; i < degree; i++)
+				start[i + 1] += start[i];
+			int[] partner = new int[added.size()];
+			int[] fill = Arrays.copyOf(start, degree);
+			for (int k = 0; k < added.size(); k += 2) {
+				int i = added.get(k), j = added.get(k + 1);
+				partner[fill[i]++] = j;
+				partner[fill[j]++] = i;
+			}
+
+			// v's remaining edges become its upward edges, and v leaves the
+			// remaining graph as its shortcuts join it.
+			up[v] = edges;
+			contracted[v] = true;
+			for (int i = 0; i < degree; i++) {
+				int u = edges.get(3 * i);
+				index(u);
+				removeEdge(u, v);
+				deleted[u]++;
+				for (int k = start[i]; k < start[i + 1]; k++) {
+					int j = partner[k];
+					long wt = (long) edges.get(3 * i + 1) + edges.get(3 * j + 1);
+					addEdge(u, edges.get(3 * j), (int) Math.min(wt, ShortestPaths.UNREACHABLE - 1), v);
+				}
+				unindex(u);
+			}
+			adj[v] = null;
+			return shortcuts;
+		}
+
+		/*
+		 *   witnessSearch() - Dijkstra from u in the remaining graph, avoiding
+		 *                     v, until the given number of wanted targets
+		 *                     settle, or out to distance limit or settleLimit
+		 *                     settled vertices.  The limits can only miss
+		 *                     witnesses, which costs a spare shortcut, never
+		 *                     a wrong answer.
+		 */
+
+		void witnessSearch(int u, int v, long limit, int targets, int settleLimit) {
+			heap.clear();
+			dist[u] = 0;
+			reached[u] = search;
+			heap.insert(u, 0);
+
+			for (int settled = 0; !heap.isEmpty() && settled < settleLimit; settled++) {
+				int a = heap.removeMin();
+				if (dist[a] > limit)
+					break;
+				if (wanted[a] == search && --targets == 0)
+					break;   // Every target's distance is final.
+				IntList edges = adj[a];
+				for (int i = 0; i < edges.size(); i += 3) {
+					int b = edges.get(i);
+					if (b == v)
+						continue;
+					long d = (long) dist[a] + edges.get(i + 1);
+					if (d > limit)
+						continue;
+					if (reached[b] != search) {
+						reached[b] = search;
+						dist[b] = (int) d;
+						heap.insert(b, (int) d);
+					}
+					else if (d < dist[b]) {
+						dist[b] = (int) d;
+						if (heap.contains(b))
+							heap.decreaseKey(b, (int) d);
+					}
+				}
+			}
+		}
+
+		/*
+		 *   index(), unindex() - fill in slot[] for the edges of a, and
+		 *                        clear it again.  One vertex at a time is
+		 *                        indexed, so one array serves them all.
+		 */
+
+		void index(int a) {
+			IntList edges = adj[a];
+			for (int i = 0; i < edges.size(); i += 3)
+				slot[edges.get(i)] = i;
+		}
+
+		void unindex(int a) {
+			IntList edges = adj[a];
+			for (int i = 0; i < edges.size(); i += 3)
+				slot[edges.get(i)] = -1;
+		}
+
+		/*
+		 *   addEdge() - add or lower the edge from a to b in the remaining
+		 *               graph.  adj[a] must be indexed.
+		 */
+
+		void addEdge(int a, int b, int wt, int middle) {
+			IntList edges = adj[a];
+			int i = slot[b];
+			if (i != -1) {
+				if (wt < edges.get(i + 1)) {
+					edges.set(i + 1, wt);
+					edges.set(i + 2, middle);
+				}
+				return;
+			}
+			slot[b] = edges.size();
+			edges.add(b);
+			edges.add(wt);
+			edges.add(middle);
+		}
+
+		/*
+		 *   removeEdge() - remove the edge from a to b, moving the last
+		 *                  triple into its place.  adj[a] must be indexed.
+		 */
+
+		void removeEdge(int a, int b) {
+			IntList edges = adj[a];
+			int i = slot[b];
+			if (i == -1)
+				return;
+			int last = edges.size() - 3;
+			int moved = edges.get(last);
+			edges.set(i, moved);
+			edges.set(i + 1, edges.get(last + 1));
+			edges.set(i + 2, edges.get(last + 2));
+			edges.removeLast();
+			edges.removeLast();
+			edges.removeLast();
+			slot[moved] = i;
+			slot[b] = -1;
+		}
+	}
+}
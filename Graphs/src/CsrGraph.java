@@ -0,0 +1,737 @@
+/*
+ * CsrGraph - implements the Graph interface for a weighted graph using
+ *            a vertex list and compressed sparse row (CSR) adjacency
+ *            arrays.
+ *
+ *            The edges of the vertex at index i are the entries
+ *            offsets[i] .. offsets[i+1]-1 of targets[] (the neighbor's
+ *            vertexList index) and weights[] (the edge weight).  Memory
+ *            grows with V + E instead of the V^2 of the WtGraph
+ *            adjacency matrix.
+ *
+ *            Inserted edges are staged and merged into the CSR arrays
+ *            the next time the adjacency is read, so loading E edges
+ *            costs a single O(V + E) rebuild rather than one per edge.
+ *
+ *            A removed vertex leaves a dead slot with an empty row, so
+ *            no other index changes; compact() closes the gaps.
+ *
+ *            In a directed graph each edge has only its forward entry,
+ *            and a reverse index lists the entries into each vertex:
+ *            the in-entries of vertex i are inOffsets[i] ..
+ *            inOffsets[i+1]-1 of inSources[] and inEntries[], the
+ *            latter the position of the forward entry, so an edge
+ *            removed there is skipped here too.
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class CsrGraph implements Graph {
+	public static final int INFINITE_EDGE_WT = WtGraph.INFINITE_EDGE_WT;
+
+	private int size; // One past the highest vertex slot in use.
+	private int count; // The number of vertices in the graph.
+	private IntList freeSlots; // Slots of removed vertices, reused by
+								// insertVertex until compact() closes them up.
+	private Vertex[] vertexList; // An array containing the graph's vertices.
+	private HashMap<String, Integer> labelIndex; // Maps a label to its vertexList index.
+
+	private int[] offsets; // Row i of the adjacency is offsets[i] .. offsets[i+1]-1.
+	private int[] targets; // The neighbor index of each adjacency entry.
+	private int[] weights; // The weight of each entry; INFINITE_EDGE_WT marks
+							// an edge removed since the last rebuild.
+	private int builtSize; // The number of rows in offsets.
+
+	private final boolean directed; // Whether each edge runs one way only.
+	private int[] inOffsets; // The reverse index, built with the CSR arrays
+	private int[] inSources; // when directed: the source vertex and forward
+	private int[] inEntries; // entry of each edge into a vertex.
+
+	private IntList pendingSrc; // Edges inserted since the last rebuild, each
+								// recorded once for both of its entries.
+	private IntList pendingDst;
+	private IntList pendingWt;
+	private volatile boolean dirty; // Whether the CSR arrays are out of date.
+	private long version; // Bumped by every change to the vertices or edges.
+
+	/*
+	 * CsrGraph() constructors - the argument is only a capacity hint; the
+	 * vertex list grows as needed so the graph is never full.
+	 */
+
+	public CsrGraph() {
+		this(16);
+	}
+
+	public CsrGraph(int expectedVertices) {
+		this(expectedVertices, false);
+	}
+
+	public CsrGraph(int expectedVertices, boolean directed) {
+		this.directed = directed;
+		vertexList = new Vertex[Math.max(expectedVertices, 1)];
+		labelIndex = new HashMap<String, Integer>();
+		freeSlots = new IntList();
+		pendingSrc = new IntList();
+		pendingDst = new IntList();
+		pendingWt = new IntList();
+		clear();
+	}
+
+	/*
+	 * CsrGraph() - a graph over ready-built CSR arrays, one label per row.
+	 * Used by GraphSnapshot.
+	 */
+
+	CsrGraph(String[] labels, int[] offsets, int[] targets, int[] weights, boolean directed) {
+		this(labels.length, directed);
+		for (String label : labels)
+			insertVertex(new Vertex(label));
+
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		builtSize = size;
+		if (directed)
+			buildReverse();
+		dirty = false;
+	}
+
+	/*
+	 * insertVertex() - add a new vertex to the graph.
+	 */
+
+	public void insertVertex(Vertex newVertex) {
+		int slot;
+		if (!freeSlots.isEmpty())
+			slot = freeSlots.removeLast(); // A dead slot's row is already empty.
+		else {
+			if (size == vertexList.length)
+				vertexList = Arrays.copyOf(vertexList, size * 2);
+			slot = size++;
+			dirty = true;
+		}
+
+		vertexList[slot] = newVertex;
+		labelIndex.put(newVertex.getLabel(), slot);
+		count++;
+		version++;
+	}
+
+	/*
+	 * insertEdge() - insert a new edge with weight wt between vertices with
+	 * labels v1 and v2.  Inserting an existing edge replaces its weight.
+	 */
+
+	public void insertEdge(String v1, String v2, int wt) {
+		int i = indexOf(v1);
+		int j = indexOf(v2);
+
+		if (i == -1 || j == -1) // Vertex not in graph.
+			return;
+
+		pendingSrc.add(i);
+		pendingDst.add(j);
+		pendingWt.add(wt);
+		dirty = true;
+		version++;
+	}
+
+	/*
+	 * retrieveVertex() - return a pointer to the Vertex with the given label v.
+	 * If no such vertex exists, return null.
+	 */
+
+	public Vertex retrieveVertex(String v) {
+		int ind = indexOf(v);
+		return (ind == -1) ? null : vertexList[ind];
+	}
+
+	/*
+	 * edgeWeight() - return the weight of the edge between the vertices with
+	 * labels v1 and v2, or INFINITE_EDGE_WT if there is no such edge.
+	 */
+
+	public int edgeWeight(String v1, String v2) {
+		ensureBuilt();
+
+		int e = find(indexOf(v1), indexOf(v2));
+		return (e == -1) ? INFINITE_EDGE_WT : weights[e];
+	}
+
+	/*
+	 * removeVertex() - remove from the graph the vertex with label v along
+	 * with its edges.  Its entries and their reverses are marked like removed
+	 * edges and the slot is left dead, so no other vertex changes index.
+	 */
+
+	public void removeVertex(String v) {
+		int ind = indexOf(v); // Get the vertex's array index.
+
+		if (ind == -1) // Vertex not in graph.
+			return;
+
+		ensureBuilt();
+
+		for (int e = offsets[ind]; e < offsets[ind + 1]; e++) {
+			if (weights[e] != INFINITE_EDGE_WT) {
+				weights[e] = INFINITE_EDGE_WT;
+				int back = directed ? -1 : find(targets[e], ind);
+				if (back != -1)
+					weights[back] = INFINITE_EDGE_WT;
+			}
+		}
+		if (directed) // The edges into it.
+			for (int r = inOffsets[ind]; r < inOffsets[ind + 1]; r++)
+				weights[inEntries[r]] = INFINITE_EDGE_WT;
+
+		labelIndex.remove(v);
+		vertexList[ind] = null;
+		freeSlots.add(ind);
+		count--;
+		version++;
+	}
+
+	/*
+	 * compact() - move the vertices down over the dead slots left by
+	 * removeVertex(), keeping their order, and return remap where remap[i]
+	 * is the new index of the vertex at old index i, or -1 if slot i was
+	 * dead.  The CSR arrays are renumbered in place in O(V + E).
+	 */
+
+	public int[] compact() {
+		ensureBuilt();
+
+		int[] remap = new int[size];
+		int live = 0;
+		for (int i = 0; i < size; i++)
+			remap[i] = (vertexList[i] == null) ? -1 : live++;
+
+		int[] newOffsets = new int[live + 1];
+		int entries = 0;
+		for (int i = 0; i < size; i++) {
+			if (remap[i] == -1)
+				continue;
+			newOffsets[remap[i]] = entries;
+			for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+				if (weights[e] != INFINITE_EDGE_WT) {
+					targets[entries] = remap[targets[e]]; // Renumber and compact
+					weights[entries] = weights[e]; // in place - entries <= e.
+					entries++;
+				}
+			}
+			vertexList[remap[i]] = vertexList[i];
+			labelIndex.put(vertexList[i].getLabel(), remap[i]);
+		}
+		newOffsets[live] = entries;
+		Arrays.fill(vertexList, live, size, null);
+
+		freeSlots.clear();
+		size = live;
+		offsets = newOffsets;
+		builtSize = size;
+		if (directed)
+			buildReverse();
+		version++; // Indices changed.
+		return remap;
+	}
+
+	/*
+	 * removeEdge() - remove the edge between the vertices with labels v1 and
+	 * v2.  The entries are marked and dropped by the next rebuild.
+	 */
+
+	public void removeEdge(String v1, String v2) {
+		ensureBuilt();
+
+		int i = indexOf(v1);
+		int j = indexOf(v2);
+		int e = find(i, j);
+		if (e != -1)
+			weights[e] = INFINITE_EDGE_WT;
+		e = directed ? -1 : find(j, i);
+		if (e != -1)
+			weights[e] = INFINITE_EDGE_WT;
+		version++;
+	}
+
+	/*
+	 * getSize() - return the number of vertex slots, live or dead.  Vertex
+	 * indices run 0 .. getSize()-1.
+	 */
+
+	public int getSize() {
+		return size;
+	}
+
+	/*
+	 * getVertexCount() - return the number of vertices in the graph.
+	 */
+
+	public int getVertexCount() {
+		return count;
+	}
+
+	/*
+	 * getVersion() - return a counter bumped by every insertion, removal,
+	 * compact() and clear(), so a result computed from the graph can tell in
+	 * O(1) whether it is stale.
+	 */
+
+	public long getVersion() {
+		return version;
+	}
+
+	/*
+	 * clear() - remove all vertices and edges from the graph.
+	 */
+
+	public void clear() {
+		Arrays.fill(vertexList, null);
+		labelIndex.clear();
+		freeSlots.clear();
+		pendingSrc.clear();
+		pendingDst.clear();
+		pendingWt.clear();
+		offsets = new int[1];
+		targets = new int[0];
+		weights = new int[0];
+		inOffsets = new int[1];
+		inSources = new int[0];
+		inEntries = new int[0];
+		builtSize = 0;
+		size = 0;
+		count = 0;
+		dirty = false;
+		version++;
+	}
+
+	/*
+	 * reset() - set all vertices in the graph to be not visited.
+	 */
+
+	public void reset() {
+		for (int i = 0; i < size; i++)
+			if (vertexList[i] != null)
+				vertexList[i].reset();
+	}
+
+	/*
+	 * Check for empty or full graphs - the vertex list grows, so a CsrGraph
+	 * is never full.
+	 */
+
+	public boolean isEmpty() {
+		return (count == 0);
+	}
+
+	public boolean isFull() {
+		return false;
+	}
+
+	/*
+	 * allEven() - determines if all the vertices are of even degree, or in
+	 * a directed graph of equal, non-zero in and out degree.
+	 */
+
+	public boolean allEven() {
+		ensureBuilt();
+
+		for (int i = 0; i < size; i++) {
+			if (vertexList[i] == null)
+				continue;
+			int degree = degreeOf(i);
+			if (directed) {
+				if (degree == 0 || degree != inDegreeOf(i))
+					return false;
+			}
+			else if (degree % 2 != 0 || degree < 2)
+				return false;
+		}
+
+		return true;
+	}
+
+	/*
+	 * neighbors() - return an array of vertices that are neighbors of vertex V.
+	 */
+
+	public Vertex[] neighbors(Vertex v) {
+		ensureBuilt();
+
+		int vertex = indexOf(v.getLabel());
+		Vertex[] neighbor = new Vertex[degreeOf(vertex)];
+		int count = 0;
+
+		for (int e = offsets[vertex]; e < offsets[vertex + 1]; e++) {
+			if (weights[e] != INFINITE_EDGE_WT)
+				neighbor[count++] = vertexList[targets[e]];
+		}
+
+		return neighbor;
+	}
+
+	/*
+	 * neighborCursor() - return a cursor over the CSR row of a vertex,
+	 * skipping entries of removed edges.
+	 */
+
+	public NeighborCursor neighborCursor() {
+		return new RowCursor();
+	}
+
+	/*
+	 * inNeighborCursor() - return a cursor over the reverse index of a
+	 * vertex, or over its row if the graph is undirected.
+	 */
+
+	public NeighborCursor inNeighborCursor() {
+		return directed ? new InCursor() : new RowCursor();
+	}
+
+	public boolean isDirected() {
+		return directed;
+	}
+
+	private class InCursor implements NeighborCursor {
+		private int r; // The reverse entry of the current neighbor.
+		private int end; // One past the last reverse entry of the vertex.
+
+		public void start(int v) {
+			ensureBuilt();
+			r = inOffsets[v] - 1;
+			end = inOffsets[v + 1];
+		}
+
+		public boolean next() {
+			while (++r < end)
+				if (weights[inEntries[r]] != INFINITE_EDGE_WT)
+					return true;
+			return false;
+		}
+
+		public int vertex() {
+			return inSources[r];
+		}
+
+		public int weight() {
+			return weights[inEntries[r]];
+		}
+	}
+
+	private class RowCursor implements NeighborCursor {
+		private int e; // The entry of the current neighbor.
+		private int end; // One past the last entry of the row.
+
+		public void start(int v) {
+			ensureBuilt();
+			e = offsets[v] - 1;
+			end = offsets[v + 1];
+		}
+
+		public boolean next() {
+			while (++e < end)
+				if (weights[e] != INFINITE_EDGE_WT)
+					return true;
+			return false;
+		}
+
+		public int vertex() {
+			return targets[e];
+		}
+
+		public int weight() {
+			return weights[e];
+		}
+	}
+
+	/*
+	 * showStructure() - display the data structures that implement the graph -
+	 * this includes the vertexList and the adjacency lists.
+	 */
+
+	public void showStructure() {
+		ensureBuilt();
+
+		System.out.println("vertexList");
+		System.out.println("----------");
+		for (int i = 0; i < size; i++)
+			if (vertexList[i] != null)
+				System.out.printf("%3d  %s\n", i, vertexList[i].getLabel());
+
+		System.out.printf("\nAdjacency Lists\n---------------\n");
+		for (int i = 0; i < size; i++) {
+			if (vertexList[i] == null)
+				continue;
+			System.out.printf("%3d|", i);
+			for (int e = offsets[i]; e < offsets[i + 1]; e++)
+				if (weights[e] != INFINITE_EDGE_WT)
+					System.out.printf(" %d(%d)", targets[e], weights[e]);
+			System.out.println();
+		}
+	}
+
+	/*
+	 * indexOf() - return the vertexList index of the vertex with label v. If the
+	 * vertex doesn't exist return -1.
+	 */
+
+	public int indexOf(String v) {
+		Integer ind = labelIndex.get(v);
+		return (ind == null) ? -1 : ind;
+	}
+
+	/*
+	 * vertexAt() - return the Vertex at vertexList index i, or null if the
+	 * slot is dead.
+	 */
+
+	public Vertex vertexAt(int i) {
+		return vertexList[i];
+	}
+
+	/*
+	 * degree() - return the number of neighbors of the vertex at index v.
+	 */
+
+	public int degree(int v) {
+		ensureBuilt();
+		return degreeOf(v);
+	}
+
+	/*
+	 * degreeOf() - count the live entries in row i.
+	 */
+
+	private int degreeOf(int i) {
+		int count = 0;
+		for (int e = offsets[i]; e < offsets[i + 1]; e++)
+			if (weights[e] != INFINITE_EDGE_WT)
+				count++;
+		return count;
+	}
+
+	private int inDegreeOf(int i) {
+		int count = 0;
+		for (int r = inOffsets[i]; r < inOffsets[i + 1]; r++)
+			if (weights[inEntries[r]] != INFINITE_EDGE_WT)
+				count++;
+		return count;
+	}
+
+	/*
+	 * find() - return the position of the entry for the edge row -> col,
+	 * or -1 if there is none.
+	 */
+
+	private int find(int row, int col) {
+		if (row == -1 || col == -1)
+			return -1;
+
+		for (int e = offsets[row]; e < offsets[row + 1]; e++)
+			if (targets[e] == col && weights[e] != INFINITE_EDGE_WT)
+				return e;
+
+		return -1;
+	}
+
+	/*
+	 * stageEdges() - stage a batch of edges given by vertex index.  When
+	 * nothing else is staged the lists are adopted rather than copied, so a
+	 * bulk load holds each edge once until the rebuild.  Used by GraphLoader.
+	 */
+
+	void stageEdges(IntList src, IntList dst, IntList wt) {
+		if (pendingSrc.isEmpty()) {
+			pendingSrc = src;
+			pendingDst = dst;
+			pendingWt = wt;
+		}
+		else {
+			for (int p = 0; p < src.size(); p++) {
+				pendingSrc.add(src.get(p));
+				pendingDst.add(dst.get(p));
+				pendingWt.add(wt.get(p));
+			}
+		}
+		dirty = true;
+		version++;
+	}
+
+	/*
+	 * Raw row access for the algorithms in GraphAlgs.  Callers call
+	 * ensureBuilt() first and skip entries whose weight is INFINITE_EDGE_WT.
+	 */
+
+	int rowStart(int i) {
+		return offsets[i];
+	}
+
+	int rowEnd(int i) {
+		return offsets[i + 1];
+	}
+
+	int targetAt(int e) {
+		return targets[e];
+	}
+
+	int weightAt(int e) {
+		return weights[e];
+	}
+
+	/*
+	 * Raw access to the reverse index of a directed graph: the edges into
+	 * vertex i are inRowStart(i) .. inRowEnd(i)-1, each from inSourceAt(r)
+	 * and stored at forward entry inEntryAt(r), whose weight tells whether
+	 * it was removed.
+	 */
+
+	int inRowStart(int i) {
+		return inOffsets[i];
+	}
+
+	int inRowEnd(int i) {
+		return inOffsets[i + 1];
+	}
+
+	int inSourceAt(int r) {
+		return inSources[r];
+	}
+
+	int inEntryAt(int r) {
+		return inEntries[r];
+	}
+
+	/*
+	 * isDense() - whether E log V outgrows V^2, the point at which scanning
+	 * an array of V distances beats a heap for shortest paths.
+	 */
+
+	boolean isDense() {
+		ensureBuilt();
+
+		long entries = offsets[size];
+		int logV = 32 - Integer.numberOfLeadingZeros(Math.max(size, 1));
+		return entries * logV >= (long) size * size;
+	}
+
+	/*
+	 * ensureBuilt() - merge any staged vertices and edges into the CSR arrays.
+	 * Safe to call from concurrent readers: the first one to arrive rebuilds
+	 * and the others wait, then all see the arrays published by the volatile
+	 * write of dirty.
+	 */
+
+	void ensureBuilt() {
+		if (dirty) {
+			synchronized (this) {
+				if (dirty)
+					rebuild();
+			}
+		}
+	}
+
+	/*
+	 * rebuild() - counting-sort the live CSR entries and the staged entries
+	 * into new arrays, then drop duplicate entries within each row keeping
+	 * the most recently inserted weight.  O(V + E).
+	 */
+
+	private void rebuild() {
+		int pending = pendingSrc.size();
+		int[] fill = new int[size + 1];
+
+		// Pass one - count the entries of every row.
+		for (int i = 0; i < builtSize; i++)
+			fill[i + 1] = degreeOf(i);
+		for (int p = 0; p < pending; p++) {
+			fill[pendingSrc.get(p) + 1]++;
+			if (pendingSrc.get(p) != pendingDst.get(p) && !directed)
+				fill[pendingDst.get(p) + 1]++;
+		}
+		for (int i = 0; i < size; i++)
+			fill[i + 1] += fill[i];
+
+		int[] newOffsets = Arrays.copyOf(fill, size + 1);
+		int[] newTargets = new int[fill[size]];
+		int[] newWeights = new int[fill[size]];
+
+		// Pass two - place old entries ahead of staged ones so the later
+		// insertion of a duplicate edge comes last in its row.
+		for (int i = 0; i < builtSize; i++)
+			for (int e = offsets[i]; e < offsets[i + 1]; e++)
+				if (weights[e] != INFINITE_EDGE_WT) {
+					newTargets[fill[i]] = targets[e];
+					newWeights[fill[i]++] = weights[e];
+				}
+		for (int p = 0; p < pending; p++) {
+			int i = pendingSrc.get(p);
+			int j = pendingDst.get(p);
+			newTargets[fill[i]] = j;
+			newWeights[fill[i]++] = pendingWt.get(p);
+			if (i != j && !directed) {
+				newTargets[fill[j]] = i;
+				newWeights[fill[j]++] = pendingWt.get(p);
+			}
+		}
+
+		// Pass three - compact each row in place, letting a later entry for
+		// the same neighbor overwrite the weight of the one already kept.
+		int[] keptAt = new int[size];
+		Arrays.fill(keptAt, -1);
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			int rowStart = count;
+			for (int e = newOffsets[i]; e < newOffsets[i + 1]; e++) {
+				int t = newTargets[e];
+				if (keptAt[t] >= rowStart)
+					newWeights[keptAt[t]] = newWeights[e];
+				else {
+					keptAt[t] = count;
+					newTargets[count] = t;
+					newWeights[count++] = newWeights[e];
+				}
+			}
+			newOffsets[i] = rowStart;
+		}
+		newOffsets[size] = count;
+
+		offsets = newOffsets;
+		targets = (count == newTargets.length) ? newTargets : Arrays.copyOf(newTargets, count);
+		weights = (count == newWeights.length) ? newWeights : Arrays.copyOf(newWeights, count);
+		builtSize = size;
+		if (directed)
+			buildReverse();
+
+		pendingSrc = new IntList();   // Release adopted lists.
+		pendingDst = new IntList();
+		pendingWt = new IntList();
+		dirty = false;
+	}
+
+	/*
+	 * buildReverse() - index the live entries of the CSR arrays by target,
+	 * each reverse row in order of source.  O(V + E).
+	 */
+
+	private void buildReverse() {
+		int[] fill = new int[size + 1];
+		for (int e = 0; e < offsets[size]; e++)
+			if (weights[e] != INFINITE_EDGE_WT)
+				fill[targets[e] + 1]++;
+		for (int i = 0; i < size; i++)
+			fill[i + 1] += fill[i];
+
+		inOffsets = Arrays.copyOf(fill, size + 1);
+		inSources = new int[fill[size]];
+		inEntries = new int[fill[size]];
+		for (int i = 0; i < size; i++)
+			for (int e = offsets[i]; e < offsets[i + 1]; e++)
+				if (weights[e] != INFINITE_EDGE_WT) {
+					int t = targets[e];
+					inSources[fill[t]] = i;
+					inEntries[fill[t]++] = e;
+				}
+	}
+}
@@ -0,0 +1,329 @@
+/*
+ *    DeltaStepping - parallel single-source shortest paths over any Graph
+ *                    (Meyer and Sanders' delta-stepping).
+ *
+ *    Tentative distances are grouped into buckets of width delta.  The
+ *    lowest non-empty bucket is settled by relaxing the light edges
+ *    (weight <= delta) of all its vertices in parallel, repeating while
+ *    relaxations refill the bucket, and then relaxing the heavy edges of
+ *    every vertex it settled once.  A small delta approaches Dijkstra, a
+ *    large one approaches Bellman-Ford; in between each bucket offers a
+ *    whole frontier of independent work to the ForkJoinPool.
+ *
+ *    The buckets form a ring of at most V + 2, reused as the search moves
+ *    on; a vertex whose distance lies beyond the ring's span waits in an
+ *    overflow list and is filed into the ring once the search nears it,
+ *    so however heavy the edges, the buckets cost O(V).
+ *
+ *    Each vertex's distance and predecessor are packed into one long and
+ *    updated with a compare-and-set, so concurrent relaxations never leave
+ *    a predecessor that disagrees with its distance.  Edges are read
+ *    through NeighborCursors, one per task, so the graph must not change
+ *    during a search.  Edge weights must not be negative.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class DeltaStepping {
+	private static final int GRAIN = 1024;        // Frontier vertices per task.
+	private static final int WEIGHT_SAMPLES = 65536;
+
+	private final ForkJoinPool pool;
+	private final int delta;   // Bucket width, or 0 to tune it per graph.
+
+	/*
+	 *   DeltaStepping() constructors - run on the common pool with a tuned
+	 *                                  delta, or on a given pool with a fixed
+	 *                                  delta (0 still means tune it).
+	 */
+
+	public DeltaStepping() {
+		this(ForkJoinPool.commonPool(), 0);
+	}
+
+	public DeltaStepping(ForkJoinPool pool, int delta) {
+		this.pool = pool;
+		this.delta = delta;
+	}
+
+	/*
+	 *   tuneDelta() - choose a bucket width from the edge weights of g.
+	 *
+	 *   Meyer and Sanders show delta = max weight / average degree keeps the
+	 *   number of re-relaxations linear for uniform weights.  Taking the
+	 *   weight at the 1 / (average degree) quantile instead gives the same
+	 *   value for uniform weights and follows the bulk of skewed ones, so a
+	 *   few very heavy edges don't blow the buckets up.
+	 */
+
+	public static int tuneDelta(Graph g) {
+		int n = g.getSize();
+		NeighborCursor c = g.neighborCursor();
+		long entries = 0;
+		for (int u = 0; u < n; u++)
+			for (c.start(u); c.next(); )
+				entries++;
+		if (entries == 0)
+			return 1;
+
+		long stride = Math.max(1, entries / WEIGHT_SAMPLES);
+		IntList sample = new IntList();
+		long e = 0;
+		for (int u = 0; u < n; u++)
+			for (c.start(u); c.next(); e++)
+				if (e % stride == 0)
+					sample.add(c.weight());
+
+		int[] weights = sample.toArray();
+		Arrays.sort(weights);
+		double averageDegree = Math.max(1.0, (double) entries / n);
+		int q = (int) (weights.length / averageDegree);
+		return Math.max(1, weights[Math.min(q, weights.length - 1)]);
+	}
+
+	/*
+	 *   search() - shortest paths in g from vertex index source.
+	 */
+
+	public ShortestPaths search(Graph g, int source) {
+		int n = g.getSize();
+		if (source < 0 || source >= n || g.vertexAt(source) == null)
+			throw new IllegalArgumentException("No vertex at index " + source);
+
+		int width = (delta > 0) ? delta : tuneDelta(g);
+		int maxWeight = 0;
+		NeighborCursor c = g.neighborCursor();
+		for (int u = 0; u < n; u++)
+			for (c.start(u); c.next(); )
+				maxWeight = Math.max(maxWeight, c.weight());
+
+		State s = new State(g, n, width);
+		s.label.set(source, pack(0, -1));
+
+		// Live distances never span more than maxWeight / width + 1 buckets
+		// past the current one, so that many suffice when it is small.
+		Buckets buckets = new Buckets(s, (int) Math.min(maxWeight / width + 2L, n + 2L));
+		buckets.add(source, 0);
+
+		int[] seen = new int[n];    // seen[v] == phase: v already in this frontier.
+		int[] done = new int[n];    // done[v] == bucket + 1: v settled in bucket.
+		int phase = 0;
+
+		while (buckets.advance()) {
+			long current = buckets.current;
+			IntList bucket = buckets.get(current);
+			IntList settled = new IntList();
+
+			while (!bucket.isEmpty()) {
+				phase++;
+				IntList frontier = new IntList(bucket.size());
+				for (int i = 0; i < bucket.size(); i++) {
+					int v = bucket.get(i);
+					if (seen[v] != phase && distance(s.label.get(v)) / width == current) {
+						seen[v] = phase;   // Drop stale and duplicate entries.
+						frontier.add(v);
+						if (done[v] != current + 1) {
+							done[v] = (int) (current + 1);
+							settled.add(v);
+						}
+					}
+				}
+				bucket.clear();
+
+				IntList updated = pool.invoke(new Relax(s, frontier.toArray(), true, 0, frontier.size()));
+				file(s, updated, buckets);
+			}
+
+			IntList updated = pool.invoke(new Relax(s, settled.toArray(), false, 0, settled.size()));
+			file(s, updated, buckets);
+		}
+
+		int[] dist = new int[n];
+		int[] pred = new int[n];
+		for (int v = 0; v < n; v++) {
+			long label = s.label.get(v);
+			dist[v] = distance(label);
+			pred[v] = (int) label;
+		}
+		return new ShortestPaths(source, dist, pred);
+	}
+
+	/*
+	 *   file() - put each vertex whose distance dropped into its bucket.
+	 */
+
+	private static void file(State s, IntList updated, Buckets buckets) {
+		for (int i = 0; i < updated.size(); i++) {
+			int v = updated.get(i);
+			buckets.add(v, distance(s.label.get(v)) / s.width);
+		}
+	}
+
+	/*
+	 *   pack()/distance() - a label holds the distance in the high 32 bits
+	 *                       and the predecessor in the low 32 bits.
+	 */
+
+	private static long pack(int dist, int pred) {
+		return ((long) dist << 32) | (pred & 0xFFFFFFFFL);
+	}
+
+	private static int distance(long label) {
+		return (int) (label >>> 32);
+	}
+
+	/*
+	 *   State - the arrays shared by the tasks of one search.
+	 */
+
+	private static class State {
+		final Graph g;
+		final int width;
+		final AtomicLongArray label;   // Packed distance and predecessor.
+
+		State(Graph g, int n, int width) {
+			this.g = g;
+			this.width = width;
+			label = new AtomicLongArray(n);
+			long unreached = pack(ShortestPaths.UNREACHABLE, -1);
+			for (int v = 0; v < n; v++)
+				label.set(v, unreached);
+		}
+	}
+
+	/*
+	 *   Buckets - a ring of buckets for the span current .. current +
+	 *             ring.length - 1, bucket b in ring[b % ring.length], and
+	 *             an overflow list for vertices filed beyond it.  Entries
+	 *             may be stale; the search skips those whose distance no
+	 *             longer lies in the bucket.
+	 */
+
+	private static class Buckets {
+		final IntList[] ring;
+		final IntList overflow = new IntList();
+		long overflowMin = Long.MAX_VALUE;   // The least bucket filed in overflow.
+		long current;                        // The bucket being settled.
+		private final State s;
+
+		Buckets(State s, int size) {
+			this.s = s;
+			ring = new IntList[size];
+			for (int b = 0; b < size; b++)
+				ring[b] = new IntList();
+		}
+
+		void add(int v, long b) {
+			if (b < current + ring.length)
+				ring[(int) (b % ring.length)].add(v);
+			else {
+				overflow.add(v);
+				overflowMin = Math.min(overflowMin, b);
+			}
+		}
+
+		IntList get(long b) {
+			return ring[(int) (b % ring.length)];
+		}
+
+		/*
+		 *   advance() - move current to the lowest non-empty bucket,
+		 *               first filing into the ring the overflow entries
+		 *               that now fall within its span; return false when
+		 *               no bucket holds anything.
+		 */
+
+		boolean advance() {
+			int k = 0;
+			while (k < ring.length && get(current + k).isEmpty())
+				k++;
+			long next = (k < ring.length) ? current + k : Long.MAX_VALUE;
+			if (overflowMin <= next) {
+				current = overflowMin;
+				int[] waiting = overflow.toArray();
+				overflow.clear();
+				overflowMin = Long.MAX_VALUE;
+				for (int v : waiting) {
+					long b = distance(s.label.get(v)) / s.width;
+					if (b >= current)   // Lower ones were settled already.
+						add(v, b);
+				}
+				next = current;
+			}
+			if (next == Long.MAX_VALUE)
+				return false;
+			current = next;
+			return true;
+		}
+	}
+
+	/*
+	 *   Relax - relax the light or heavy edges of vertices[lo .. hi-1],
+	 *           returning the vertices whose distance dropped.
+	 */
+
+	private static class Relax extends RecursiveTask<IntList> {
+		private static final long serialVersionUID = 1L;
+
+		private final State s;
+		private final int[] vertices;
+		private final boolean light;
+		private final int lo, hi;
+
+		Relax(State s, int[] vertices, boolean light, int lo, int hi) {
+			this.s = s;
+			this.vertices = vertices;
+			this.light = light;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected IntList compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				Relax left = new Relax(s, vertices, light, lo, mid);
+				left.fork();
+				IntList updated = new Relax(s, vertices, light, mid, hi).compute();
+				IntList other = left.join();
+				for (int i = 0; i < other.size(); i++)
+					updated.add(other.get(i));
+				return updated;
+			}
+
+			NeighborCursor c = s.g.neighborCursor();
+			IntList updated = new IntList();
+			for (int i = lo; i < hi; i++) {
+				int u = vertices[i];
+				int du = distance(s.label.get(u));
+				for (c.start(u); c.next(); ) {
+					int wt = c.weight();
+					if ((wt <= s.width) != light)
+						continue;
+					long d = (long) du + wt;
+					if (d < ShortestPaths.UNREACHABLE && lower(s.label, c.vertex(), (int) d, u))
+						updated.add(c.vertex());
+				}
+			}
+			return updated;
+		}
+
+		/*
+		 *   lower() - atomically lower v's distance to d via u, returning
+		 *             whether this call lowered it.
+		 */
+
+		private static boolean lower(AtomicLongArray label, int v, int d, int u) {
+			long next = pack(d, u);
+			while (true) {
+				long old = label.get(v);
+				if (distance(old) <= d)
+					return false;
+				if (label.compareAndSet(v, old, next))
+					return true;
+			}
+		}
+	}
+}
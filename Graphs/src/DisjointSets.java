@@ -0,0 +1,88 @@
+/*
+ *    DisjointSets - a union-find forest over the ints 0 .. n-1, with
+ *                   union by rank and path compression, so any sequence
+ *                   of m operations costs O(m a(n)).
+ */
+
+public class DisjointSets {
+	private int[] parent;   // parent[x] == x when x is the root of its set.
+	private byte[] rank;    // An upper bound on the height of each root's tree.
+	private int sets;       // The number of disjoint sets.
+
+	/*
+	 *   DisjointSets() constructor - n singleton sets {0} .. {n-1}.
+	 */
+
+	public DisjointSets(int n) {
+		parent = new int[n];
+		rank = new byte[n];
+		for (int x = 0; x < n; x++)
+			parent[x] = x;
+		sets = n;
+	}
+
+	/*
+	 *   find() - return the root of the set holding x, pointing every
+	 *            node on the way straight at the root.
+	 */
+
+	public int find(int x) {
+		int root = x;
+		while (parent[root] != root)
+			root = parent[root];
+
+		while (parent[x] != root) {
+			int next = parent[x];
+			parent[x] = root;
+			x = next;
+		}
+		return root;
+	}
+
+	/*
+	 *   root() - return the root of the set holding x without compressing
+	 *            the path, so concurrent readers may share the forest
+	 *            while nothing is being joined.
+	 */
+
+	public int root(int x) {
+		while (parent[x] != x)
+			x = parent[x];
+		return x;
+	}
+
+	/*
+	 *   union() - join the sets holding x and y, returning false if they
+	 *             were already the same set.
+	 */
+
+	public boolean union(int x, int y) {
+		int rx = find(x);
+		int ry = find(y);
+		if (rx == ry)
+			return false;
+
+		if (rank[rx] < rank[ry])
+			parent[rx] = ry;
+		else if (rank[rx] > rank[ry])
+			parent[ry] = rx;
+		else {
+			parent[ry] = rx;
+			rank[rx]++;
+		}
+		sets--;
+		return true;
+	}
+
+	public boolean connected(int x, int y) {
+		return find(x) == find(y);
+	}
+
+	/*
+	 *   count() - return the number of disjoint sets.
+	 */
+
+	public int count() {
+		return sets;
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ *    DistanceTable - the result of an all-pairs shortest path search.
+ *
+ *    The distances are one row-major array: the distance from vertex
+ *    index u to vertex index v is at u * size + v, and is
+ *    ShortestPaths.UNREACHABLE when there is no path.
+ */
+
+public class DistanceTable {
+	private int size;        // The number of rows and columns.
+	private int[] dist;      // dist[u * size + v] is the distance from u to v.
+
+	/*
+	 *   DistanceTable() constructor - takes ownership of the array.
+	 */
+
+	public DistanceTable(int size, int[] dist)
+	{
+		this.size = size;
+		this.dist = dist;
+	}
+
+	public int getSize()
+	{
+		return size;
+	}
+
+	/*
+	 *   distance() - return the shortest distance from u to v, or
+	 *                ShortestPaths.UNREACHABLE.
+	 */
+
+	public int distance(int u, int v)
+	{
+		return dist[u * size + v];
+	}
+
+	public boolean hasPath(int u, int v)
+	{
+		return dist[u * size + v] != ShortestPaths.UNREACHABLE;
+	}
+
+	/*
+	 *   getRow() - copy the distances from u to every vertex into row.
+	 */
+
+	public void getRow(int u, int[] row)
+	{
+		System.arraycopy(dist, u * size, row, 0, size);
+	}
+}
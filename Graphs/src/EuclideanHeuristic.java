@@ -0,0 +1,48 @@
+/*
+ *    EuclideanHeuristic - estimates the distance between two vertices as
+ *                         the straight-line distance between their
+ *                         Vertex locations, times a scale.
+ *
+ *    The estimate is admissible, and consistent, when no edge weighs less
+ *    than scale times the straight-line length of the edge - on a road
+ *    network, scale is the lowest cost per unit of distance.  A vertex
+ *    without a location is estimated at 0, which is always safe.
+ */
+
+public class EuclideanHeuristic implements Heuristic {
+	private final double[] x;         // The coordinates of each vertex index,
+	private final double[] y;         //   copied when the heuristic is made.
+	private final boolean[] located;
+	private final double scale;
+
+	/*
+	 *   EuclideanHeuristic() constructor - reads the locations of the
+	 *                                      vertices of g as they are now.
+	 */
+
+	public EuclideanHeuristic(Graph g, double scale) {
+		int n = g.getSize();
+		x = new double[n];
+		y = new double[n];
+		located = new boolean[n];
+		this.scale = scale;
+
+		for (int v = 0; v < n; v++) {
+			Vertex vertex = g.vertexAt(v);
+			if (vertex != null && vertex.hasLocation()) {
+				x[v] = vertex.getX();
+				y[v] = vertex.getY();
+				located[v] = true;
+			}
+		}
+	}
+
+	public int estimate(int v, int target) {
+		if (v >= located.length || target >= located.length || !located[v] || !located[target])
+			return 0;
+
+		double dx = x[v] - x[target];
+		double dy = y[v] - y[target];
+		return (int) Math.min(Integer.MAX_VALUE - 1, Math.floor(scale * Math.sqrt(dx * dx + dy * dy)));
+	}
+}
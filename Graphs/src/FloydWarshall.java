@@ -0,0 +1,184 @@
+/*
+ *    FloydWarshall - all-pairs shortest paths by the blocked, parallel
+ *                    Floyd-Warshall algorithm (Venkataraman, Sahni and
+ *                    Mukhopadhyaya).
+ *
+ *    The distance matrix is cut into BLOCK x BLOCK tiles that fit in
+ *    cache together.  Round kb relaxes every path through the vertices
+ *    of tile row and column kb in three phases:
+ *
+ *      1. the diagonal tile (kb, kb) on its own,
+ *      2. the other tiles of row kb and column kb, each needing only the
+ *         diagonal tile - in parallel,
+ *      3. every remaining tile (i, j), needing only tiles (i, kb) and
+ *         (kb, j) - in parallel.
+ *
+ *    Each tile is relaxed in full while it is in cache, so the O(V^3)
+ *    work streams O(V^3 / BLOCK) values from memory instead of O(V^3).
+ *    Phase three reads the rows of tile row kb from a copy made once per
+ *    round, so its innermost loop is a min between two distinct arrays
+ *    that the JIT can vectorize.
+ *
+ *    No path is ShortestPaths.UNREACHABLE throughout.  A sum through k
+ *    is formed in int: with both parts non-negative it wraps negative
+ *    exactly when it would pass Integer.MAX_VALUE, whether from a missing
+ *    leg or from real lengths, and then counts as no path - the same
+ *    limit Dijkstra has.  Edge weights must not be negative.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class FloydWarshall {
+	public static final int BLOCK = 64;   // Tile width: three 64 x 64 int tiles are 48 KB.
+	static final int MAX_CELLS = Integer.MAX_VALUE - 8;   // The largest array most JVMs allocate.
+
+	private final ForkJoinPool pool;
+
+	/*
+	 *   FloydWarshall() constructors - run on the common pool or a given pool.
+	 */
+
+	public FloydWarshall() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	public FloydWarshall(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/*
+	 *   distances() - the shortest distance between every pair of vertices
+	 *                 of g.  Rows and columns of dead slots stay unreachable.
+	 *                 The V x V table must fit one array of MAX_CELLS.
+	 */
+
+	public DistanceTable distances(Graph g) {
+		int n = g.getSize();
+		if ((long) n * n > MAX_CELLS)
+			throw new IllegalArgumentException("A distance table of " + n + " x " + n
+					+ " slots exceeds " + MAX_CELLS + " cells");
+		int[] d = new int[n * n];
+		Arrays.fill(d, ShortestPaths.UNREACHABLE);
+
+		NeighborCursor c = g.neighborCursor();
+		for (int u = 0; u < n; u++) {
+			if (g.vertexAt(u) != null)
+				d[u * n + u] = 0;
+			for (c.start(u); c.next(); ) {
+				if (c.weight() < 0)
+					throw new IllegalArgumentException("Negative edge weight from index " + u);
+				int i = u * n + c.vertex();
+				d[i] = Math.min(d[i], c.weight());
+			}
+		}
+
+		int tiles = (n + BLOCK - 1) / BLOCK;
+		int[] strip = new int[Math.min(BLOCK, n) * n];   // Rows of tile row kb.
+		for (int kb = 0; kb < tiles; kb++) {
+			relax(d, n, kb, kb, kb);
+			pool.invoke(new Phase(d, null, n, tiles, kb, 0, 2 * (tiles - 1)));
+
+			int k0 = kb * BLOCK, k1 = Math.min(k0 + BLOCK, n);
+			System.arraycopy(d, k0 * n, strip, 0, (k1 - k0) * n);
+			pool.invoke(new Phase(d, strip, n, tiles, kb, 0, (tiles - 1) * (tiles - 1)));
+		}
+
+		return new DistanceTable(n, d);
+	}
+
+	/*
+	 *   relax() - relax tile (ib, jb), which shares rows or columns with
+	 *             tile kb, through the vertices of tile kb.  Its entries
+	 *             feed later steps of the same round, so k is the outer loop.
+	 */
+
+	static void relax(int[] d, int n, int ib, int jb, int kb) {
+		int i0 = ib * BLOCK, i1 = Math.min(i0 + BLOCK, n);
+		int j0 = jb * BLOCK, j1 = Math.min(j0 + BLOCK, n);
+		int k0 = kb * BLOCK, k1 = Math.min(k0 + BLOCK, n);
+
+		for (int k = k0; k < k1; k++)
+			for (int i = i0; i < i1; i++)
+				relaxRow(d, i * n, d[i * n + k], d, k * n, j0, j1);
+	}
+
+	/*
+	 *   relaxOff() - relax tile (ib, jb), off row and column kb, through
+	 *                the vertices of tile kb, whose rows are in strip.  Row
+	 *                i of the tile stays in cache while every k is applied.
+	 */
+
+	static void relaxOff(int[] d, int[] strip, int n, int ib, int jb, int kb) {
+		int i0 = ib * BLOCK, i1 = Math.min(i0 + BLOCK, n);
+		int j0 = jb * BLOCK, j1 = Math.min(j0 + BLOCK, n);
+		int k0 = kb * BLOCK, k1 = Math.min(k0 + BLOCK, n);
+
+		for (int i = i0; i < i1; i++)
+			for (int k = k0; k < k1; k++)
+				relaxRow(d, i * n, d[i * n + k], strip, (k - k0) * n, j0, j1);
+	}
+
+	/*
+	 *   relaxRow() - d[i][j] = min(d[i][j], d[i][k] + d[k][j]) for j0 <= j < j1,
+	 *                where a is d[i][k], row i starts at d[iRow] and row k at
+	 *                k[kRow].  A sum that wraps negative is no path.
+	 */
+
+	private static void relaxRow(int[] d, int iRow, int a, int[] k, int kRow, int j0, int j1) {
+		if (a == ShortestPaths.UNREACHABLE)
+			return;   // Nothing goes through k from i.
+		for (int j = j0; j < j1; j++) {
+			int via = a + k[kRow + j];
+			d[iRow + j] = Math.min(d[iRow + j], (via < 0) ? ShortestPaths.UNREACHABLE : via);
+		}
+	}
+
+	/*
+	 *   Phase - relax tiles lo .. hi-1 of phase two (row and column kb, in
+	 *           that order) or, given the strip, phase three (every tile
+	 *           off row and column kb, row by row).
+	 */
+
+	private static class Phase extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] d;
+		private final int[] strip;   // The rows of tile row kb, or null in phase two.
+		private final int n, tiles, kb;
+		private final int lo, hi;
+
+		Phase(int[] d, int[] strip, int n, int tiles, int kb, int lo, int hi) {
+			this.d = d;
+			this.strip = strip;
+			this.n = n;
+			this.tiles = tiles;
+			this.kb = kb;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected void compute() {
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Phase(d, strip, n, tiles, kb, lo, mid),
+						new Phase(d, strip, n, tiles, kb, mid, hi));
+				return;
+			}
+			if (lo == hi)
+				return;
+
+			if (strip != null)
+				relaxOff(d, strip, n, skip(lo / (tiles - 1)), skip(lo % (tiles - 1)), kb);
+			else if (lo < tiles - 1)
+				relax(d, n, kb, skip(lo), kb);                   // Row kb.
+			else
+				relax(d, n, skip(lo - (tiles - 1)), kb, kb);     // Column kb.
+		}
+
+		private int skip(int b) {   // The b'th tile index other than kb.
+			return (b < kb) ? b : b + 1;
+		}
+	}
+}
@@ -11,6 +11,30 @@ public interface Graph
 	                                                 //   between Vertices with labels v1, v2
 	public void removeVertex(String v);              // Remove vertex with label v
 	public void removeEdge(String v1, String v2);    // Remove edge between vertices w/ labels v1, v2.
+	public Vertex[] neighbors(Vertex v);             // Return the Vertices adjacent to v.
+	public NeighborCursor neighborCursor();          // Return a reusable cursor over the
+	                                                 //   neighbors of a vertex by index.
+	public NeighborCursor inNeighborCursor();        // Return a cursor over the vertices with an
+	                                                 //   edge to a vertex by index; the same as
+	                                                 //   neighborCursor() unless directed.
+	public boolean isDirected();                     // Return whether insertEdge(v1, v2, wt) makes
+	                                                 //   an edge from v1 to v2 only.  Neighbors and
+	                                                 //   degree then count outgoing edges.
+	public int getSize();                            // Return the number of vertex slots.
+	public int getVertexCount();                     // Return the number of vertices.
+	public int indexOf(String v);                    // Return the index of the Vertex with
+	                                                 //   label v, or -1.  Indices run 0 .. getSize()-1.
+	public Vertex vertexAt(int i);                   // Return the Vertex at index i, or null if
+	                                                 //   that slot's vertex was removed.
+	public int[] compact();                          // Close up removed slots; return the new
+	                                                 //   index of each old index, or -1.
+	public int degree(int v);                        // Return the number of neighbors of the
+	                                                 //   Vertex at index v.
+	public boolean allEven();                        // Return whether every vertex has even,
+	                                                 //   non-zero degree - if directed, non-zero
+	                                                 //   and equal in and out degrees.
+	public long getVersion();                        // Return a counter that changes with every
+	                                                 //   change to the vertices or edges.
 	
 	public void clear();            // Remove all vertices and edges from the graph.
 	public boolean isEmpty();       // Return whether the graph is empty.
@@ -12,12 +12,22 @@ import java.util.*;
 import java.io.*;
 
 public class GraphAlgs {
+	static final int BETWEENNESS_SAMPLES = 256;   // Sources the pr command samples.
 	
 	
 	/*
 	 *   main() - A main routine that:
 	 *            1) Reads a file containing vertices and edges - supplied as a command line parameter.
-	 *            2) Forms the WtGraph
+	 *            2) Forms the WtGraph - or a CsrGraph when -csr follows the file name,
+	 *               and a directed one, each edge running from source to
+	 *               destination, when -directed does.
+	 *               A file written by GraphSnapshot is opened as a CsrGraph, and
+	 *               -save <file> writes a snapshot of the graph once it is formed.
+	 *               -offheap keeps the graph outside the Java heap (see
+	 *               OffHeapGraph): a snapshot is mapped in place, and any
+	 *               other graph is copied off the heap once formed.
+	 *               -batch <queries> <results> answers a file of queries
+	 *               (see BatchQueries) instead of prompting.
 	 *            3) Repeatedly prompts for an algorithm to run.
 	 *            
 	 *            4) The data file is a sequence of lines with the format.
@@ -27,55 +37,74 @@ public class GraphAlgs {
 	
 	public static void main(String[] args)
 	{
-		WtGraph g = new WtGraph(3000);
+		boolean csr = false;
+		boolean directed = false;
+		boolean offHeap = false;
+		String savePath = null;
+		String queryPath = null, resultPath = null;
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("-csr"))
+				csr = true;
+			else if (args[i].equals("-directed"))
+				directed = true;
+			else if (args[i].equals("-offheap"))
+				offHeap = true;
+			else if (args[i].equals("-save") && i + 1 < args.length)
+				savePath = args[++i];
+			else if (args[i].equals("-batch") && i + 2 < args.length) {
+				queryPath = args[++i];
+				resultPath = args[++i];
+			}
+		}
+		Graph g = null;
 
         boolean LabPart2 = true;
 		
 		try
 		{
-			FileReader fin = new FileReader( args[0] );
-			Scanner graphFile = new Scanner( fin );
-			
-			// Read vertices and edges and insert.
-			
-			String line;
-			
-			while (graphFile.hasNextLine()) {
-				line = graphFile.nextLine();
-				StringTokenizer st = new StringTokenizer(line);
+			if (GraphSnapshot.isSnapshot(args[0])) {
+				long start = System.nanoTime();
+				g = offHeap ? OffHeapGraph.map(args[0]) : GraphSnapshot.open(args[0]);
+				System.out.printf("Snapshot opened in %.3f s\n", (System.nanoTime() - start) / 1e9);
+			}
+			else {
+				// Read vertices and edges and insert.
 				
-				try {
-					if (st.countTokens() == 1) {     // Inserting a new vertex if 
-						String v = st.nextToken();   // not already in the graph.
-						if (g.retrieveVertex(v) == null)
-							g.insertVertex( new Vertex(v));
-					}
-					else if (st.countTokens() == 3) {  // Inserting a new edge
-						String src = st.nextToken();
-						String dest = st.nextToken();
-						int weight = Integer.parseInt( st.nextToken());
-						
-						if (g.retrieveVertex(src) == null)
-							g.insertVertex( new Vertex( src ));
-						if (g.retrieveVertex(dest) == null)
-							g.insertVertex( new Vertex(dest));
-						
-						g.insertEdge(src, dest, weight);
-					}
-					else {
-						System.out.println("Skipping ill-formatted line: " + line);
-					}
-				}
-				catch( NumberFormatException e) {
-					System.out.println("Skipping ill-formatted line: " + line);
+				GraphLoader loader = GraphLoader.load(args[0]);
+				System.out.println(loader.report());
+				
+				if (csr)
+					g = loader.toCsrGraph(directed);
+				else {
+					g = new WtGraph(Math.max(3000, loader.getVertexCount()), directed);
+					loader.insertInto(g);
 				}
 			}
+			
+			if (savePath != null)
+				GraphSnapshot.write(g, savePath);
+			if (offHeap && !(g instanceof OffHeapGraph))
+				g = OffHeapGraph.copyOf(g);
 		}
 		catch( IOException e) {
 			System.err.println(e);
 		}
 		
+		if (g == null)
+			g = csr ? new CsrGraph(16, directed) : new WtGraph(3000, directed);
+		
 		System.out.println("File read\n");
+		
+		if (queryPath != null) {
+			try {
+				System.out.println(new BatchQueries(g).run(queryPath, resultPath));
+			}
+			catch (IOException e) {
+				System.err.println(e);
+			}
+			return;
+		}
+		
 	    g.showStructure();	
 
 	    
@@ -86,14 +115,14 @@ public class GraphAlgs {
 	}
 	
 	
-	public static void processRequests(Scanner keyb, WtGraph g)
+	public static void processRequests(Scanner keyb, Graph g)
 	{
 		boolean repeat = true;
 		
 		while (repeat)
 			try
 			{
-				System.out.print("Enter algorithm  d)epth, b)readth, dij)kstra e)ven q)uit: ");
+				System.out.print("Enter algorithm  d)epth, b)readth, dij)kstra p)ath e)ven eu)ler mst scc topo pr q)uit: ");
 				String alg = keyb.nextLine();
 				
 				if (alg.equals("d")) {
@@ -112,7 +141,31 @@ public class GraphAlgs {
 					System.out.println("... Dijkstra's Algorithm");
 					System.out.print("Enter starting vertex: ");
 					String startVertex = keyb.nextLine();
-					dijkstra(startVertex, g);
+					ShortestPaths paths = dijkstra(startVertex, g);
+					if (paths == null)
+						System.out.println("That vertex is not in the graph");
+					else
+						printShortestPaths(paths, g);
+				}
+				else if (alg.equals("p")) {
+					System.out.println("... Point-to-Point Shortest Path");
+					System.out.print("Enter starting vertex: ");
+					int source = g.indexOf(keyb.nextLine());
+					System.out.print("Enter target vertex: ");
+					int target = g.indexOf(keyb.nextLine());
+					if (source == -1 || target == -1)
+						System.out.println("That vertex is not in the graph");
+					else {
+						Route route = new PointToPoint(g).bidirectional(source, target);
+						if (!route.isReachable())
+							System.out.println("unreachable");
+						else {
+							for (int v : route.getPath())
+								System.out.print(g.vertexAt(v).getLabel() + " ");
+							System.out.printf("\nDistance %d, %d vertices settled\n",
+									route.getDistance(), route.getSettled());
+						}
+					}
 				}
 				else if (alg.equals("e")) {
 					boolean allEven = g.allEven();
@@ -121,6 +174,65 @@ public class GraphAlgs {
 					else
 						System.out.println("Some vertices have odd degree or zero degrees.");
 				}
+				else if (alg.equals("eu")) {
+					System.out.println("... Eulerian Circuit");
+					System.out.print("Enter starting vertex: ");
+					String startVertex = keyb.nextLine();
+					int[] circuit = eulerCircuit(startVertex, g);
+					if (circuit == null)
+						System.out.println("No Eulerian circuit from that vertex.");
+					else {
+						for (int v : circuit)
+							System.out.print(g.vertexAt(v).getLabel() + " ");
+						System.out.println();
+					}
+				}
+				else if (alg.equals("mst")) {
+					System.out.println("... Minimum Spanning Tree");
+					MinSpanningTree tree = kruskal(g);
+					for (Edge e : tree.getEdges())
+						System.out.println(e);
+					System.out.println("Total weight: " + tree.getTotalWeight()
+							+ (tree.isSpanning() ? "" : " (forest of " + tree.getComponents() + " trees)"));
+				}
+				else if (alg.equals("scc")) {
+					System.out.println("... Strongly Connected Components");
+					StrongComponents scc = stronglyConnected(g);
+					IntList[] members = new IntList[scc.getCount()];
+					for (int c = 0; c < members.length; c++)
+						members[c] = new IntList();
+					for (int v = 0; v < g.getSize(); v++)
+						if (scc.componentOf(v) != -1)
+							members[scc.componentOf(v)].add(v);
+					for (int c = members.length - 1; c >= 0; c--) {   // Sources first.
+						for (int i = 0; i < members[c].size(); i++)
+							System.out.print(g.vertexAt(members[c].get(i)).getLabel() + " ");
+						System.out.println();
+					}
+				}
+				else if (alg.equals("topo")) {
+					System.out.println("... Topological Order");
+					int[] order = topologicalOrder(g);
+					if (order == null)
+						System.out.println("The graph has a cycle.");
+					else {
+						for (int v : order)
+							System.out.print(g.vertexAt(v).getLabel() + " ");
+						System.out.println();
+					}
+				}
+				else if (alg.equals("pr")) {
+					System.out.println("... PageRank");
+					GraphAnalytics analytics = new GraphAnalytics();
+					PageRank ranks = analytics.pageRank(g);
+					long[] weighted = analytics.weightedDegree(g);
+					double[] between = analytics.betweenness(g, BETWEENNESS_SAMPLES, 1);
+					System.out.println(ranks.report());
+					System.out.printf("%-20s %10s %10s %12s\n", "vertex", "rank", "degree", "betweenness");
+					for (int v : ranks.top(10))
+						System.out.printf("%-20s %10.6f %10d %12.1f\n", g.vertexAt(v).getLabel(),
+								ranks.getRanks()[v], weighted[v], between[v]);
+				}
 				else if (alg.equals("q"))
 					repeat = false;
 			}
@@ -135,27 +247,58 @@ public class GraphAlgs {
 	 *   depthFirst - print out the order in which the vertices
 	 *                  of a graph will be traversed in a depthFirst
 	 *                  traversal from a given starting node.
+	 *
+	 *                  The visited flags live in per-query VisitMarks, so
+	 *                  the graph is only read and traversals from many
+	 *                  threads can share it.  Neighbors come from a
+	 *                  NeighborCursor by index, so the loop allocates
+	 *                  nothing per vertex; a WtGraph is searched through
+	 *                  its bit matrix (see depthFirstOrder).  The labels
+	 *                  are gathered and printed at once; to consume a
+	 *                  traversal without printing, or stop it early, see
+	 *                  Traversal.
+	 */
+	
+	public static void depthFirst(String startV, Graph g)
+	{
+		int start = g.indexOf(startV);
+		if (start == -1)
+			return;
+		
+		System.out.print(labels(depthFirstOrder(start, g), g));
+	}
+	
+	
+	/*
+	 *   depthFirstOrder - the vertex indices in depth first order from the
+	 *                     vertex at index start.  A WtGraph is searched
+	 *                     through its bit matrix by BitTraversal.
 	 */
 	
-	public static void depthFirst(String startV, WtGraph g)
+	public static int[] depthFirstOrder(int start, Graph g)
 	{
-        Stack <Vertex> visited = new Stack <Vertex>();
-        Vertex[] neighbors;
-        g.reset();	// sets all visited to false
+		if (g instanceof WtGraph)
+			return BitTraversal.depthFirstOrder(start, (WtGraph) g);
+		
+        IntList visited = new IntList();   // A stack of vertex indices.
+        IntList order = new IntList();
+        NeighborCursor neighbors = g.neighborCursor();
+        VisitMarks marks = VisitMarks.acquire(g.getSize());
         
-        visited.push(g.retrieveVertex(startV));
+        visited.add(start);
         while (!visited.isEmpty()) {
-        	Vertex u = visited.pop();
-        	if (!u.isVisited()) {
-        		u.visit();
-        		System.out.println(u.getLabel());
-        		neighbors = g.neighbors(u);
-        		for (Vertex each:neighbors) {
-        			visited.push(each);
+        	int u = visited.removeLast();
+        	if (!marks.visit(u)) {
+        		order.add(u);
+        		for (neighbors.start(u); neighbors.next(); ) {
+        			if (!marks.isVisited(neighbors.vertex()))
+        				visited.add(neighbors.vertex());
         		}
         	}
         }
         
+        VisitMarks.release(marks);
+        return order.toArray();
 	}
 	
 	
@@ -163,31 +306,472 @@ public class GraphAlgs {
 	 *   breadthFirst - print out the order in which the vertices
 	 *                  of a graph will be traversed in a breadthFirst
 	 *                  traversal from a given starting node.
+	 *
+	 *                  Vertices are marked as they are enqueued, so each
+	 *                  enters the queue once.
+	 */
+	
+	public static void breadthFirst(String startV, Graph g)
+	{
+		int start = g.indexOf(startV);
+		if (start == -1)
+			return;
+		
+		System.out.print(labels(breadthFirstOrder(start, g), g));
+	}
+	
+	
+	/*
+	 *   labels - the label of each vertex of order, one a line.
 	 */
 	
-	public static void breadthFirst(String startV, WtGraph g)
+	private static String labels(int[] order, Graph g)
 	{
-		Queue <Vertex> visited = new Queue <Vertex>();
-        Vertex[] neighbors;
-        g.reset();	// sets all visited to false
+		StringBuilder sb = new StringBuilder();
+		for (int v : order)
+			sb.append(g.vertexAt(v).getLabel()).append('\n');
+		return sb.toString();
+	}
+	
+	
+	/*
+	 *   breadthFirstOrder - the vertex indices in breadth first order from
+	 *                       the vertex at index start.  The queue is the
+	 *                       order itself.  A WtGraph is searched through
+	 *                       its bit matrix by BitTraversal.
+	 */
+	
+	public static int[] breadthFirstOrder(int start, Graph g)
+	{
+		if (g instanceof WtGraph)
+			return BitTraversal.breadthFirstOrder(start, (WtGraph) g);
+		
+		IntList visited = new IntList();   // A queue of vertex indices;
+		int front = 0;                     //   front is the next to leave.
+        NeighborCursor neighbors = g.neighborCursor();
+        VisitMarks marks = VisitMarks.acquire(g.getSize());
         
-        visited.enqueue(g.retrieveVertex(startV));
-        while (!visited.isEmpty()) {
-        	Vertex u = visited.dequeue();
-        	if (!u.isVisited()) {
-        		u.visit();
-        		System.out.println(u.getLabel());
-        		neighbors = g.neighbors(u);
-        		for (Vertex each:neighbors) {
-        			visited.enqueue(each);
-        		}
+        marks.visit(start);
+        visited.add(start);
+        while (front < visited.size()) {
+        	int u = visited.get(front++);
+        	for (neighbors.start(u); neighbors.next(); ) {
+        		if (!marks.visit(neighbors.vertex()))
+        			visited.add(neighbors.vertex());
         	}
         }
+        
+        VisitMarks.release(marks);
+        return visited.toArray();
 	}
 	
-	public static void dijkstra(String startV, WtGraph g)
+	/*
+	 *   dijkstra - compute the shortest distance and predecessor of every
+	 *              vertex from a given starting node, or return null if the
+	 *              starting node isn't in the graph.  Edge weights must not
+	 *              be negative.
+	 *
+	 *              Sparse graphs are searched with an indexed heap in
+	 *              O((V + E) log V).  The adjacency matrix, whose rows cost
+	 *              O(V) to scan whatever their degree, and a CsrGraph dense
+	 *              enough that E log V exceeds V^2, use the O(V^2) scan of
+	 *              the distance array instead.
+	 */
+
+	public static ShortestPaths dijkstra(String startV, Graph g)
 	{
+		int source = g.indexOf(startV);
+		if (source == -1)
+			return null;
+
+		return dijkstra(source, g);
+	}
+
+	/*
+	 *   dijkstra - as above, from the vertex at index source.
+	 */
 
+	public static ShortestPaths dijkstra(int source, Graph g)
+	{
+		boolean dense = (g instanceof WtGraph)
+				|| (g instanceof CsrGraph && ((CsrGraph) g).isDense());
+		return dense ? dijkstraScan(source, g) : dijkstraHeap(source, g);
+	}
+	
+	
+	/*
+	 *   dijkstraHeap - Dijkstra with an indexed heap.  Each vertex enters
+	 *                  the heap once and relaxing an edge is a decrease-key,
+	 *                  so no vertex is ever rescanned.
+	 */
+	
+	private static ShortestPaths dijkstraHeap(int source, Graph g)
+	{
+		int n = g.getSize();
+		int[] dist = new int[n];
+		int[] pred = new int[n];
+		Arrays.fill(dist, ShortestPaths.UNREACHABLE);
+		Arrays.fill(pred, -1);
+		
+		IndexedHeap heap = new IndexedHeap(n);
+		NeighborCursor c = g.neighborCursor();
+		dist[source] = 0;
+		heap.insert(source, 0);
+		
+		while (!heap.isEmpty()) {
+			int u = heap.removeMin();
+			for (c.start(u); c.next(); ) {
+				int v = c.vertex();
+				long d = (long) dist[u] + c.weight();
+				if (d < dist[v]) {
+					boolean queued = dist[v] != ShortestPaths.UNREACHABLE;
+					dist[v] = (int) d;
+					pred[v] = u;
+					if (heap.contains(v))
+						heap.decreaseKey(v, dist[v]);
+					else if (!queued)
+						heap.insert(v, dist[v]);
+				}
+			}
+		}
+		
+		return new ShortestPaths(source, dist, pred);
+	}
+	
+	
+	/*
+	 *   dijkstraScan - Dijkstra that selects the next vertex by scanning
+	 *                  the distance array; O(V^2) regardless of E.
+	 */
+	
+	private static ShortestPaths dijkstraScan(int source, Graph g)
+	{
+		int n = g.getSize();
+		int[] dist = new int[n];
+		int[] pred = new int[n];
+		boolean[] done = new boolean[n];
+		Arrays.fill(dist, ShortestPaths.UNREACHABLE);
+		Arrays.fill(pred, -1);
+		dist[source] = 0;
+		
+		NeighborCursor c = g.neighborCursor();
+		while (true) {
+			int u = -1;
+			for (int v = 0; v < n; v++)   // Closest vertex not yet done.
+				if (!done[v] && dist[v] != ShortestPaths.UNREACHABLE
+						&& (u == -1 || dist[v] < dist[u]))
+					u = v;
+			if (u == -1)
+				break;
+			done[u] = true;
+			
+			for (c.start(u); c.next(); )
+				relax(u, c.vertex(), c.weight(), dist, pred);
+		}
+		
+		return new ShortestPaths(source, dist, pred);
+	}
+	
+	
+	/*
+	 *   relax - shorten the path to v through the edge (u, v) if that helps.
+	 */
+	
+	private static void relax(int u, int v, int wt, int[] dist, int[] pred)
+	{
+		long d = (long) dist[u] + wt;
+		if (d < dist[v]) {
+			dist[v] = (int) d;
+			pred[v] = u;
+		}
+	}
+	
+	
+	/*
+	 *   eulerCircuit - return the vertex indices of a closed walk from the
+	 *                  given starting node that uses every edge once
+	 *                  (Hierholzer's algorithm), or null if there is none:
+	 *                  a vertex has odd degree, or some edge can't be
+	 *                  reached from the start.
+	 *
+	 *                  The degree table sizes the adjacency arrays, each
+	 *                  edge is read once through the cursor and walked
+	 *                  once, so beyond the cursor's reads this is O(V + E).
+	 *
+	 *                  In a directed graph every vertex needs as many
+	 *                  edges in as out, and each edge is walked its own way.
+	 */
+	
+	public static int[] eulerCircuit(String startV, Graph g)
+	{
+		int start = g.indexOf(startV);
+		if (start == -1)
+			return null;
+		
+		int n = g.getSize();
+		boolean directed = g.isDirected();
+		int[] in = directed ? inDegrees(g) : null;
+		int[] first = new int[n + 1];      // Adjacency of v is first[v] ..
+		for (int v = 0; v < n; v++) {      //   first[v+1]-1 of to[] and edge[].
+			if (directed ? g.degree(v) != in[v] : g.degree(v) % 2 != 0)
+				return null;
+			first[v + 1] = first[v] + g.degree(v);
+		}
+		
+		// Number each edge once, from its lower endpoint, and file it
+		// under both endpoints (a self-loop has only the one entry).
+		// A directed edge is filed under its source alone.
+		int[] to = new int[first[n]];
+		int[] edge = new int[first[n]];
+		int[] fill = Arrays.copyOf(first, n);
+		int edges = 0;
+		NeighborCursor c = g.neighborCursor();
+		for (int u = 0; u < n; u++) {
+			for (c.start(u); c.next(); ) {
+				int v = c.vertex();
+				if (v < u && !directed)
+					continue;
+				to[fill[u]] = v;
+				edge[fill[u]++] = edges;
+				if (v != u && !directed) {
+					to[fill[v]] = u;
+					edge[fill[v]++] = edges;
+				}
+				edges++;
+			}
+		}
+		
+		boolean[] used = new boolean[edges];
+		IntList stack = new IntList();
+		IntList circuit = new IntList(edges + 1);
+		stack.add(start);
+		
+		while (!stack.isEmpty()) {
+			int u = stack.get(stack.size() - 1);
+			while (fill[u] > first[u] && used[edge[fill[u] - 1]])
+				fill[u]--;    // Skip edges already walked from the other end.
+			
+			if (fill[u] == first[u])
+				circuit.add(stack.removeLast());   // u is finished.
+			else {
+				int e = --fill[u];
+				used[edge[e]] = true;
+				stack.add(to[e]);
+			}
+		}
+		
+		if (circuit.size() != edges + 1)
+			return null;   // Some edges lie in another component.
+		
+		int[] walk = circuit.toArray();   // Finished last first, so backwards.
+		if (directed)
+			for (int i = 0, j = walk.length - 1; i < j; i++, j--) {
+				int t = walk[i];
+				walk[i] = walk[j];
+				walk[j] = t;
+			}
+		return walk;
+	}
+	
+	
+	/*
+	 *   stronglyConnected - the strongly connected components of a
+	 *                       directed graph by Tarjan's algorithm.  An
+	 *                       explicit call stack replaces the recursion,
+	 *                       so a path of millions of vertices needs heap,
+	 *                       not thread stack.  The edges are first copied
+	 *                       into flat arrays so each frame keeps its place
+	 *                       in its vertex's list.  O(V + E).
+	 */
+	
+	public static StrongComponents stronglyConnected(Graph g)
+	{
+		int n = g.getSize();
+		int[] first = new int[n + 1];
+		int[] to = outEdges(g, first);
+		int[] next = Arrays.copyOf(first, n);   // The next edge each vertex's frame follows.
+		int[] index = new int[n];               // Discovery order, or -1.
+		int[] low = new int[n];                 // Lowest index reachable through the subtree.
+		int[] component = new int[n];
+		Arrays.fill(index, -1);
+		Arrays.fill(component, -1);
+		
+		IntList open = new IntList();    // Visited vertices not yet in a component.
+		IntList calls = new IntList();   // The vertices whose frames are active.
+		int discovered = 0;
+		int count = 0;
+		
+		for (int s = 0; s < n; s++) {
+			if (index[s] != -1 || g.vertexAt(s) == null)
+				continue;
+			index[s] = low[s] = discovered++;
+			open.add(s);
+			calls.add(s);
+			
+			while (!calls.isEmpty()) {
+				int u = calls.get(calls.size() - 1);
+				if (next[u] < first[u + 1]) {
+					int w = to[next[u]++];
+					if (index[w] == -1) {          // Descend into w.
+						index[w] = low[w] = discovered++;
+						open.add(w);
+						calls.add(w);
+					}
+					else if (component[w] == -1)   // w is still open.
+						low[u] = Math.min(low[u], index[w]);
+				}
+				else {                             // Return from u.
+					calls.removeLast();
+					if (low[u] == index[u]) {      // u roots a component.
+						int w;
+						do {
+							w = open.removeLast();
+							component[w] = count;
+						} while (w != u);
+						count++;
+					}
+					if (!calls.isEmpty()) {
+						int parent = calls.get(calls.size() - 1);
+						low[parent] = Math.min(low[parent], low[u]);
+					}
+				}
+			}
+		}
+		
+		return new StrongComponents(component, count);
+	}
+	
+	
+	/*
+	 *   topologicalOrder - the vertex indices of a directed graph ordered
+	 *                      so that every edge runs from an earlier vertex
+	 *                      to a later one, or null if there is a cycle.
+	 *                      Kahn's algorithm: take the vertices no edge
+	 *                      enters, then those whose edges all came from
+	 *                      vertices already taken.  O(V + E), no recursion.
+	 */
+	
+	public static int[] topologicalOrder(Graph g)
+	{
+		int n = g.getSize();
+		int[] in = inDegrees(g);
+		IntList order = new IntList(g.getVertexCount());   // Also the queue.
+		for (int v = 0; v < n; v++)
+			if (in[v] == 0 && g.vertexAt(v) != null)
+				order.add(v);
+		
+		NeighborCursor c = g.neighborCursor();
+		for (int front = 0; front < order.size(); front++)
+			for (c.start(order.get(front)); c.next(); )
+				if (--in[c.vertex()] == 0)
+					order.add(c.vertex());
+		
+		return (order.size() == g.getVertexCount()) ? order.toArray() : null;
+	}
+	
+	
+	/*
+	 *   inDegrees - the number of edges into each vertex.
+	 */
+	
+	private static int[] inDegrees(Graph g)
+	{
+		int[] in = new int[g.getSize()];
+		NeighborCursor c = g.neighborCursor();
+		for (int u = 0; u < in.length; u++)
+			for (c.start(u); c.next(); )
+				in[c.vertex()]++;
+		return in;
+	}
+	
+	
+	/*
+	 *   outEdges - copy the neighbors of every vertex into one array, those
+	 *              of v at first[v] .. first[v+1]-1, and return it.
+	 */
+	
+	private static int[] outEdges(Graph g, int[] first)
+	{
+		int n = g.getSize();
+		for (int v = 0; v < n; v++)
+			first[v + 1] = first[v] + g.degree(v);
+		
+		int[] to = new int[first[n]];
+		NeighborCursor c = g.neighborCursor();
+		for (int u = 0; u < n; u++) {
+			int e = first[u];
+			for (c.start(u); c.next(); )
+				to[e++] = c.vertex();
+		}
+		return to;
+	}
+	
+	
+	/*
+	 *   kruskal - the minimum spanning tree (a forest if g is disconnected)
+	 *             by Kruskal's algorithm.  The edges are packed with their
+	 *             weights into longs and sorted with Arrays.parallelSort,
+	 *             then joined lightest first through a DisjointSets forest,
+	 *             stopping as soon as the tree is complete.
+	 */
+	
+	public static MinSpanningTree kruskal(Graph g)
+	{
+		IntList src = new IntList(), dst = new IntList(), wt = new IntList();
+		MinSpanningTree.gatherEdges(g, src, dst, wt);
+		
+		long[] keys = new long[src.size()];
+		for (int e = 0; e < keys.length; e++)
+			keys[e] = MinSpanningTree.key(wt.get(e), e);
+		Arrays.parallelSort(keys);
+		
+		DisjointSets sets = new DisjointSets(g.getSize());
+		ArrayList<Edge> tree = new ArrayList<Edge>();
+		long total = 0;
+		int needed = g.getVertexCount() - 1;
+		for (int i = 0; i < keys.length && tree.size() < needed; i++) {
+			int e = (int) keys[i];
+			if (sets.union(src.get(e), dst.get(e))) {
+				tree.add(new Edge(g.vertexAt(src.get(e)), g.vertexAt(dst.get(e)), wt.get(e)));
+				total += wt.get(e);
+			}
+		}
+		
+		return new MinSpanningTree(tree, total, g.getVertexCount() - tree.size());
+	}
+	
+	
+	/*
+	 *   printShortestPaths - print each vertex's distance and predecessor.
+	 */
+	
+	public static void printShortestPaths(ShortestPaths paths, Graph g)
+	{
+		System.out.print(formatShortestPaths(paths, g));
+	}
+	
+	
+	/*
+	 *   formatShortestPaths - the lines printShortestPaths prints.
+	 */
+	
+	public static String formatShortestPaths(ShortestPaths paths, Graph g)
+	{
+		StringBuilder text = new StringBuilder();
+		Formatter f = new Formatter(text);
+		for (int v = 0; v < g.getSize(); v++) {
+			if (g.vertexAt(v) == null)
+				continue;   // A removed vertex's slot.
+			String label = g.vertexAt(v).getLabel();
+			if (!paths.hasPathTo(v))
+				f.format("%-10s  unreachable\n", label);
+			else if (v == paths.getSource())
+				f.format("%-10s  %10d\n", label, 0);
+			else
+				f.format("%-10s  %10d  via %s\n", label, paths.distance(v),
+						g.vertexAt(paths.getPredecessors()[v]).getLabel());
+		}
+		return text.toString();
 	}
 	
 }
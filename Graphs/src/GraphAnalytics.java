@@ -0,0 +1,374 @@
+/*
+ *    GraphAnalytics - vertex importance measures computed in parallel on
+ *                     a ForkJoinPool, each task taking a range of vertices.
+ *
+ *      pageRank()           - PageRank by pull-based power iteration: each
+ *                             vertex sums the shares of the vertices with
+ *                             an edge to it, so every task writes only its
+ *                             own range and no update needs a lock.
+ *      weightedDegree()     - the total weight of each vertex's edges out.
+ *      betweenness()        - betweenness centrality estimated from a
+ *                             sample of sources (Brandes' algorithm with
+ *                             Dijkstra, scaled up by V / samples).
+ *
+ *    Results are primitive arrays indexed by vertex slot, with 0 for a
+ *    dead slot.  PageRank counts edges, not weights: a vertex shares its
+ *    rank equally among its out-neighbors, and a vertex with none shares
+ *    it among every vertex.  Betweenness takes the weights as lengths,
+ *    which must be positive.  The graph must not change during a call;
+ *    each task reads it through its own cursor.
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+public class GraphAnalytics {
+	public static final double DAMPING = 0.85;
+	public static final double TOLERANCE = 1e-9;
+	public static final int MAX_ITERATIONS = 100;
+	private static final int GRAIN = 4096;        // Vertices per task.
+	private static final int SOURCE_GRAIN = 4;    // Betweenness sources per task.
+
+	private final ForkJoinPool pool;
+
+	/*
+	 *   GraphAnalytics() constructors - run on the common pool or a given pool.
+	 */
+
+	public GraphAnalytics() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	public GraphAnalytics(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/*
+	 *   pageRank() - PageRank with the default DAMPING, TOLERANCE and
+	 *                MAX_ITERATIONS.
+	 */
+
+	public PageRank pageRank(Graph g) {
+		return pageRank(g, DAMPING, TOLERANCE, MAX_ITERATIONS);
+	}
+
+	/*
+	 *   pageRank() - iterate from the uniform ranks until an iteration
+	 *                changes them by less than tolerance in L1 distance,
+	 *                or maxIterations have run.  A surfer follows an edge
+	 *                with probability damping and otherwise jumps to a
+	 *                vertex chosen at random.
+	 */
+
+	public PageRank pageRank(Graph g, double damping, double tolerance, int maxIterations) {
+		if (damping < 0 || damping > 1)
+			throw new IllegalArgumentException("Damping must lie in [0, 1]: " + damping);
+
+		long start = System.nanoTime();
+		Ranking r = new Ranking(g, damping);
+		if (r.live == 0)
+			return new PageRank(r.rank, new double[0], true, System.nanoTime() - start);
+		for (int v = 0; v < r.n; v++)
+			if (r.outDegree[v] != -1)
+				r.rank[v] = 1.0 / r.live;
+
+		double[] changes = new double[Math.max(0, maxIterations)];
+		int iterations = 0;
+		boolean converged = false;
+		while (iterations < maxIterations && !converged) {
+			r.dangling = pool.invoke(new Share(r, 0, r.n));
+			double change = pool.invoke(new Pull(r, 0, r.n));
+			double[] t = r.rank;
+			r.rank = r.next;
+			r.next = t;
+			changes[iterations++] = change;
+			converged = change < tolerance;
+		}
+
+		return new PageRank(r.rank, Arrays.copyOf(changes, iterations), converged,
+				System.nanoTime() - start);
+	}
+
+	/*
+	 *   weightedDegree() - the sum of the weights of the edges out of each
+	 *                      vertex; in an undirected graph, of all its edges.
+	 */
+
+	public long[] weightedDegree(Graph g) {
+		long[] degree = new long[g.getSize()];
+		pool.invoke(new WeightedDegree(g, degree, 0, degree.length));
+		return degree;
+	}
+
+	/*
+	 *   betweenness() - estimate, for each vertex, the number of shortest
+	 *                   paths between other vertices that pass through it,
+	 *                   shared equally among ties.  The shortest paths from
+	 *                   samples sources chosen at random (by seed) are
+	 *                   counted and scaled by V / samples; with samples >= V
+	 *                   every source is used and the result is exact.  In
+	 *                   an undirected graph each path is counted once, not
+	 *                   once per direction.  O(samples (V + E) log V).
+	 */
+
+	public double[] betweenness(Graph g, int samples, long seed) {
+		int n = g.getSize();
+		IntList live = new IntList();
+		for (int v = 0; v < n; v++)
+			if (g.vertexAt(v) != null)
+				live.add(v);
+
+		int[] sources = live.toArray();
+		int k = Math.min(Math.max(samples, 0), sources.length);
+		Random random = new Random(seed);
+		for (int i = 0; i < k; i++) {   // A partial Fisher-Yates shuffle.
+			int j = i + random.nextInt(sources.length - i);
+			int t = sources[i];
+			sources[i] = sources[j];
+			sources[j] = t;
+		}
+
+		double[] centrality = (k == 0) ? new double[n] : pool.invoke(new Brandes(g, sources, 0, k));
+		double scale = (k == 0) ? 0 : (double) sources.length / k;
+		if (!g.isDirected())
+			scale /= 2;
+		for (int v = 0; v < n; v++)
+			centrality[v] *= scale;
+		return centrality;
+	}
+
+	/*
+	 *   Ranking - the arrays shared by the tasks of one PageRank.
+	 */
+
+	private static class Ranking {
+		final Graph g;
+		final int n;           // Vertex slots.
+		final int live;        // Live vertices.
+		final double damping;
+		final int[] outDegree; // Out-degree, or -1 for a dead slot.
+		final double[] share;  // share[u] is what u gives each out-neighbor.
+		double[] rank, next;
+		double dangling;       // The rank held by vertices with no edges out.
+
+		Ranking(Graph g, double damping) {
+			this.g = g;
+			this.damping = damping;
+			n = g.getSize();
+			live = g.getVertexCount();
+			outDegree = new int[n];
+			for (int v = 0; v < n; v++)
+				outDegree[v] = (g.vertexAt(v) == null) ? -1 : g.degree(v);
+			share = new double[n];
+			rank = new double[n];
+			next = new double[n];
+		}
+	}
+
+	/*
+	 *   Share - set the share each vertex of lo .. hi-1 gives its neighbors,
+	 *           returning the rank held by those with no neighbors.
+	 */
+
+	private static class Share extends RecursiveTask<Double> {
+		private static final long serialVersionUID = 1L;
+
+		private final Ranking r;
+		private final int lo, hi;
+
+		Share(Ranking r, int lo, int hi) {
+			this.r = r;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected Double compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				Share left = new Share(r, lo, mid);
+				left.fork();
+				double right = new Share(r, mid, hi).compute();
+				return left.join() + right;
+			}
+
+			double dangling = 0;
+			for (int u = lo; u < hi; u++) {
+				if (r.outDegree[u] > 0)
+					r.share[u] = r.rank[u] / r.outDegree[u];
+				else if (r.outDegree[u] == 0)
+					dangling += r.rank[u];
+			}
+			return dangling;
+		}
+	}
+
+	/*
+	 *   Pull - compute the next rank of each vertex of lo .. hi-1 from the
+	 *          shares of its in-neighbors, returning the L1 change.
+	 */
+
+	private static class Pull extends RecursiveTask<Double> {
+		private static final long serialVersionUID = 1L;
+
+		private final Ranking r;
+		private final int lo, hi;
+
+		Pull(Ranking r, int lo, int hi) {
+			this.r = r;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected Double compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				Pull left = new Pull(r, lo, mid);
+				left.fork();
+				double right = new Pull(r, mid, hi).compute();
+				return left.join() + right;
+			}
+
+			double base = (1 - r.damping) / r.live + r.damping * r.dangling / r.live;
+			NeighborCursor in = r.g.inNeighborCursor();
+			double change = 0;
+			for (int v = lo; v < hi; v++) {
+				if (r.outDegree[v] == -1)
+					continue;
+				double sum = 0;
+				for (in.start(v); in.next(); )
+					sum += r.share[in.vertex()];
+				r.next[v] = base + r.damping * sum;
+				change += Math.abs(r.next[v] - r.rank[v]);
+			}
+			return change;
+		}
+	}
+
+	/*
+	 *   WeightedDegree - sum the edge weights of vertices lo .. hi-1.
+	 */
+
+	private static class WeightedDegree extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Graph g;
+		private final long[] degree;
+		private final int lo, hi;
+
+		WeightedDegree(Graph g, long[] degree, int lo, int hi) {
+			this.g = g;
+			this.degree = degree;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new WeightedDegree(g, degree, lo, mid), new WeightedDegree(g, degree, mid, hi));
+				return;
+			}
+
+			NeighborCursor c = g.neighborCursor();
+			for (int u = lo; u < hi; u++) {
+				long sum = 0;
+				for (c.start(u); c.next(); )
+					sum += c.weight();
+				degree[u] = sum;
+			}
+		}
+	}
+
+	/*
+	 *   Brandes - the betweenness counted from sources[lo .. hi-1].  Each
+	 *             leaf adds into an array of its own and the halves are
+	 *             summed as they join, so no two threads share a counter.
+	 */
+
+	private static class Brandes extends RecursiveTask<double[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final Graph g;
+		private final int[] sources;
+		private final int lo, hi;
+
+		Brandes(Graph g, int[] sources, int lo, int hi) {
+			this.g = g;
+			this.sources = sources;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected double[] compute() {
+			if (hi - lo > SOURCE_GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				Brandes left = new Brandes(g, sources, lo, mid);
+				left.fork();
+				double[] sum = new Brandes(g, sources, mid, hi).compute();
+				double[] other = left.join();
+				for (int v = 0; v < sum.length; v++)
+					sum[v] += other[v];
+				return sum;
+			}
+
+			int n = g.getSize();
+			double[] centrality = new double[n];
+			int[] dist = new int[n];
+			double[] paths = new double[n];   // The number of shortest paths from the source.
+			double[] depend = new double[n];  // The source's dependency on each vertex.
+			IntList settled = new IntList();  // In order of distance.
+			IndexedHeap heap = new IndexedHeap(n);
+			NeighborCursor out = g.neighborCursor();
+			NeighborCursor in = g.inNeighborCursor();
+
+			for (int i = lo; i < hi; i++) {
+				int s = sources[i];
+				Arrays.fill(dist, ShortestPaths.UNREACHABLE);
+				Arrays.fill(paths, 0);
+				Arrays.fill(depend, 0);
+				settled.clear();
+				heap.clear();
+
+				// Dijkstra, counting the shortest paths to each vertex.
+				dist[s] = 0;
+				paths[s] = 1;
+				heap.insert(s, 0);
+				while (!heap.isEmpty()) {
+					int u = heap.removeMin();
+					settled.add(u);
+					for (out.start(u); out.next(); ) {
+						int w = out.vertex();
+						long d = (long) dist[u] + out.weight();
+						if (d < dist[w]) {
+							if (dist[w] == ShortestPaths.UNREACHABLE)
+								heap.insert(w, (int) d);
+							else
+								heap.decreaseKey(w, (int) d);
+							dist[w] = (int) d;
+							paths[w] = paths[u];
+						}
+						else if (d == dist[w])
+							paths[w] += paths[u];
+					}
+				}
+
+				// Farthest first, pass each vertex's dependency back along
+				// the edges that lie on its shortest paths.
+				for (int j = settled.size() - 1; j > 0; j--) {
+					int w = settled.get(j);
+					for (in.start(w); in.next(); ) {
+						int v = in.vertex();
+						if (v != w && dist[v] != ShortestPaths.UNREACHABLE
+								&& (long) dist[v] + in.weight() == dist[w])
+							depend[v] += paths[v] / paths[w] * (1 + depend[w]);
+					}
+					centrality[w] += depend[w];
+				}
+			}
+			return centrality;
+		}
+	}
+}
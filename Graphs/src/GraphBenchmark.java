@@ -0,0 +1,248 @@
+/*
+ *    GraphBenchmark - times the graph operations on synthetic graphs.
+ *
+ *          java GraphBenchmark [quick]
+ *
+ *    For each generator (see GraphGenerators), size and representation
+ *    it builds a graph and times loading it from a file, neighbors(),
+ *    depth and breadth first traversal, allEven(), dijkstra(),
+ *    removeVertex() and, for WtGraph, BitTraversal.transitiveClosure().
+ *    Each benchmark runs warmup untimed rounds so the JIT settles, then
+ *    rounds timed ones of about roundNanos each, and prints operations
+ *    per second, time per operation, and bytes allocated per operation
+ *    and per second from the thread's allocation counter (HotSpot's
+ *    com.sun.management.ThreadMXBean; "-" elsewhere).  Every result
+ *    feeds a checksum printed at the end, so the JIT cannot drop the
+ *    work.  quick runs the smallest size with short rounds.
+ *
+ *    WtGraph holds a V x V matrix, so it is only built up to
+ *    WT_GRAPH_LIMIT vertices.  Each CsrGraph is also copied into an
+ *    OffHeapGraph and its read-only benchmarks repeated there.  Compare
+ *    runs on an idle machine.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+public class GraphBenchmark {
+	static final int WT_GRAPH_LIMIT = 3000;
+	static final int REMOVALS = 500;   // Vertices removed per round of removeVertex.
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private static int warmup = 2;
+	private static int rounds = 3;
+	private static long roundNanos = 250000000L;
+	private static long checksum;
+
+	/*
+	 *   Op - one operation; i counts the calls, so each call can pick a
+	 *        different vertex.
+	 */
+
+	interface Op {
+		long run(long i);
+	}
+
+	public static void main(String[] args) throws IOException {
+		boolean quick = args.length > 0 && args[0].equals("quick");
+		int[] sizes = quick ? new int[] { 1024 } : new int[] { 1024, 16384, 131072 };
+		if (quick) {
+			warmup = 1;
+			rounds = 1;
+			roundNanos = 50000000L;
+		}
+
+		System.out.printf("%-22s %-14s %12s %12s %12s %10s\n",
+				"graph", "benchmark", "ops/s", "us/op", "B/op", "MB/s alloc");
+		for (int n : sizes) {
+			for (String kind : new String[] { "er4", "er32", "rmat", "grid", "road" }) {
+				for (boolean csr : new boolean[] { false, true }) {
+					if (!csr && n > WT_GRAPH_LIMIT)
+						continue;
+					run(kind, n, csr);
+				}
+			}
+		}
+		System.out.println("checksum " + checksum);
+	}
+
+	/*
+	 *   run() - every benchmark on one generated graph.
+	 */
+
+	private static void run(final String kind, final int n, final boolean csr) throws IOException {
+		final Graph g = build(kind, n, csr);
+		final int size = g.getSize();
+		String name = String.format("%s/%d/%s", kind, size, csr ? "csr" : "wt");
+
+		final File file = File.createTempFile("bench", ".txt");
+		file.deleteOnExit();
+		GraphGenerators.write(g, file.getPath());
+
+		measure(name, "load", i -> {
+			try {
+				GraphLoader loader = GraphLoader.load(file.getPath());
+				if (csr)
+					return loader.toCsrGraph().getSize();
+				Graph copy = new WtGraph(size);
+				loader.insertInto(copy);
+				return copy.getSize();
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		measureQueries(name, g);
+		if (!csr)
+			measure(name, "closure", i -> BitTraversal.transitiveClosure((WtGraph) g).length);
+		measureRemovals(name, kind, n, csr);
+		file.delete();
+
+		if (csr)
+			measureQueries(String.format("%s/%d/offheap", kind, size), OffHeapGraph.copyOf(g));
+	}
+
+	/*
+	 *   measureQueries() - the benchmarks that leave g unchanged.
+	 */
+
+	private static void measureQueries(String name, final Graph g) {
+		final int size = g.getSize();
+		measure(name, "neighbors", i -> g.neighbors(g.vertexAt((int) (i % size))).length);
+		measure(name, "depthFirst", i -> GraphAlgs.depthFirstOrder(pick(i, size), g).length);
+		measure(name, "breadthFirst", i -> GraphAlgs.breadthFirstOrder(pick(i, size), g).length);
+		measure(name, "allEven", i -> g.allEven() ? 1 : 0);
+		measure(name, "dijkstra", i -> GraphAlgs.dijkstra(pick(i, size), g).distance(pick(i + 1, size)));
+	}
+
+	/*
+	 *   build() - the graph a generator makes with about n vertices.
+	 */
+
+	private static Graph build(String kind, int n, boolean csr) {
+		int side = (int) Math.sqrt(n);
+		int vertices = kind.equals("rmat") ? Integer.highestOneBit(n)
+				: (kind.equals("grid") || kind.equals("road")) ? side * side : n;
+		Graph g = csr ? new CsrGraph(vertices) : new WtGraph(vertices);
+
+		if (kind.equals("er4"))
+			GraphGenerators.erdosRenyi(g, n, 2L * n, 100, 1);
+		else if (kind.equals("er32"))
+			GraphGenerators.erdosRenyi(g, n, 16L * n, 100, 1);
+		else if (kind.equals("rmat"))
+			GraphGenerators.rmat(g, Integer.numberOfTrailingZeros(vertices), 8L * vertices, 100, 1);
+		else if (kind.equals("grid"))
+			GraphGenerators.grid(g, side, side, 10, 1);
+		else
+			GraphGenerators.roadLike(g, side, side, 1);
+
+		if (g instanceof CsrGraph)
+			((CsrGraph) g).ensureBuilt();
+		return g;
+	}
+
+	/*
+	 *   measure() - warm op up, time it and print a line of results.
+	 */
+
+	static void measure(String graph, String benchmark, Op op) {
+		for (int r = 0; r < warmup; r++)
+			round(op);
+
+		long ops = 0, nanos = 0, bytes = 0;
+		for (int r = 0; r < rounds; r++) {
+			long[] result = round(op);
+			ops += result[0];
+			nanos += result[1];
+			bytes = (result[2] < 0 || bytes < 0) ? -1 : bytes + result[2];
+		}
+		report(graph, benchmark, ops, nanos, bytes);
+	}
+
+	/*
+	 *   round() - run op until roundNanos have passed, returning the call
+	 *             count, the time taken and the bytes allocated.
+	 */
+
+	private static long[] round(Op op) {
+		long bytes = allocated();
+		long start = System.nanoTime();
+		long calls = 0, elapsed;
+		do {
+			checksum += op.run(calls++);
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < roundNanos);
+
+		long after = allocated();
+		return new long[] { calls, elapsed, (bytes < 0) ? -1 : after - bytes };
+	}
+
+	/*
+	 *   measureRemovals() - removeVertex() changes the graph, so each round
+	 *                       builds a fresh one untimed and times REMOVALS
+	 *                       removals of distinct random vertices from it.
+	 */
+
+	private static void measureRemovals(String graph, String kind, int n, boolean csr) {
+		long ops = 0, nanos = 0, bytes = 0;
+		for (int r = 0; r < warmup + rounds; r++) {
+			Graph g = build(kind, n, csr);
+			int removals = Math.min(REMOVALS, g.getSize() / 2);
+			Random random = new Random(r);
+			int[] slots = new int[g.getSize()];
+			for (int v = 0; v < slots.length; v++)
+				slots[v] = v;
+			String[] victims = new String[removals];
+			for (int k = 0; k < removals; k++) {   // A partial Fisher-Yates shuffle, so no repeats.
+				int j = k + random.nextInt(slots.length - k);
+				int t = slots[k];
+				slots[k] = slots[j];
+				slots[j] = t;
+				victims[k] = g.vertexAt(slots[k]).getLabel();
+			}
+
+			long before = allocated();
+			long start = System.nanoTime();
+			for (String v : victims)
+				g.removeVertex(v);
+			long elapsed = System.nanoTime() - start;
+			long after = allocated();
+			checksum += g.getVertexCount();
+
+			if (r >= warmup) {
+				ops += removals;
+				nanos += elapsed;
+				bytes = (before < 0 || bytes < 0) ? -1 : bytes + after - before;
+			}
+		}
+		report(graph, "removeVertex", ops, nanos, bytes);
+	}
+
+	private static void report(String graph, String benchmark, long ops, long nanos, long bytes) {
+		double seconds = nanos / 1e9;
+		System.out.printf("%-22s %-14s %12.1f %12.2f %12s %10s\n", graph, benchmark,
+				ops / seconds, nanos / 1e3 / ops,
+				(bytes < 0) ? "-" : String.valueOf(bytes / ops),
+				(bytes < 0) ? "-" : String.format("%.1f", bytes / seconds / 1e6));
+	}
+
+	/*
+	 *   allocated() - the bytes this thread has allocated so far, or -1 if
+	 *                 the JVM doesn't count them.
+	 */
+
+	private static long allocated() {
+		if (THREADS instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+
+	private static int pick(long i, int size) {   // A vertex index that varies with i.
+		return (int) ((i * 2654435761L) % size);
+	}
+}
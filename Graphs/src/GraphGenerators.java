@@ -0,0 +1,176 @@
+/*
+ *    GraphGenerators - synthetic graphs for benchmarks and tests.
+ *
+ *      erdosRenyi() - m edges between uniformly random pairs.
+ *      rmat()       - m edges placed by recursive quadrant choice
+ *                     (Chakrabarti, Zhan and Faloutsos), giving the skewed,
+ *                     power-law degrees of social and web graphs.
+ *      grid()       - a rows x cols lattice, each vertex joined to the
+ *                     ones above, below, left and right.
+ *      roadLike()   - a lattice with jittered positions, about a tenth of
+ *                     its streets missing and every tenth row and column
+ *                     an arterial road that is quicker to drive.
+ *
+ *    Vertices are labelled "v0", "v1", ... and inserted into the graph
+ *    given, which must have room for them.  The lattices set vertex
+ *    locations, and their weights are never less than EUCLIDEAN_SCALE
+ *    times the straight-line distance, so EuclideanHeuristic with that
+ *    scale is admissible for A*.  A generator is a pure function of its
+ *    seed, so a benchmark can build the same graph every run.
+ */
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class GraphGenerators {
+	public static final double EUCLIDEAN_SCALE = 7.0;   // Weight per unit of distance on arterials.
+	private static final int STREET_SCALE = 10;         // Weight per unit of distance elsewhere.
+
+	private GraphGenerators() {
+	}
+
+	/*
+	 *   erdosRenyi() - n vertices and m random edges with weights
+	 *                  1 .. maxWeight.  Repeated pairs keep the last weight.
+	 */
+
+	public static Graph erdosRenyi(Graph g, int n, long m, int maxWeight, long seed) {
+		Random random = new Random(seed);
+		String[] labels = insertVertices(g, n);
+		for (long e = 0; e < m; e++)
+			g.insertEdge(labels[random.nextInt(n)], labels[random.nextInt(n)], 1 + random.nextInt(maxWeight));
+		return g;
+	}
+
+	/*
+	 *   rmat() - 2^scale vertices and m edges.  Each edge descends scale
+	 *            levels of the adjacency matrix, choosing the top left,
+	 *            top right, bottom left or bottom right quadrant with
+	 *            probability 0.57, 0.19, 0.19 and 0.05.
+	 */
+
+	public static Graph rmat(Graph g, int scale, long m, int maxWeight, long seed) {
+		Random random = new Random(seed);
+		int n = 1 << scale;
+		String[] labels = insertVertices(g, n);
+		for (long e = 0; e < m; e++) {
+			int u = 0, v = 0;
+			for (int bit = scale - 1; bit >= 0; bit--) {
+				double p = random.nextDouble();
+				if (p >= 0.57 && p < 0.76)
+					v |= 1 << bit;
+				else if (p >= 0.76 && p < 0.95)
+					u |= 1 << bit;
+				else if (p >= 0.95) {
+					u |= 1 << bit;
+					v |= 1 << bit;
+				}
+			}
+			g.insertEdge(labels[u], labels[v], 1 + random.nextInt(maxWeight));
+		}
+		return g;
+	}
+
+	/*
+	 *   grid() - a rows x cols lattice with unit spacing and weights
+	 *            STREET_SCALE .. STREET_SCALE * maxFactor.
+	 */
+
+	public static Graph grid(Graph g, int rows, int cols, int maxFactor, long seed) {
+		Random random = new Random(seed);
+		String[] labels = insertVertices(g, rows * cols);
+		for (int r = 0; r < rows; r++)
+			for (int c = 0; c < cols; c++)
+				g.vertexAt(g.indexOf(labels[r * cols + c])).setLocation(c, r);
+
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				int v = r * cols + c;
+				if (c + 1 < cols)
+					g.insertEdge(labels[v], labels[v + 1], STREET_SCALE * (1 + random.nextInt(maxFactor)));
+				if (r + 1 < rows)
+					g.insertEdge(labels[v], labels[v + cols], STREET_SCALE * (1 + random.nextInt(maxFactor)));
+			}
+		}
+		return g;
+	}
+
+	/*
+	 *   roadLike() - a rows x cols lattice whose vertices are moved up to
+	 *                a third of the spacing at random.  Each street is
+	 *                missing with probability 0.1 and weighs its length
+	 *                times STREET_SCALE; streets on every tenth row and
+	 *                column are arterials, never missing and weighing
+	 *                their length times EUCLIDEAN_SCALE.
+	 */
+
+	public static Graph roadLike(Graph g, int rows, int cols, long seed) {
+		Random random = new Random(seed);
+		String[] labels = insertVertices(g, rows * cols);
+		double[] x = new double[rows * cols], y = new double[rows * cols];
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				int v = r * cols + c;
+				x[v] = c + (random.nextDouble() - 0.5) * 2 / 3;
+				y[v] = r + (random.nextDouble() - 0.5) * 2 / 3;
+				g.vertexAt(g.indexOf(labels[v])).setLocation(x[v], y[v]);
+			}
+		}
+
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < cols; c++) {
+				int v = r * cols + c;
+				if (c + 1 < cols)
+					street(g, labels, x, y, v, v + 1, r % 10 == 0, random);
+				if (r + 1 < rows)
+					street(g, labels, x, y, v, v + cols, c % 10 == 0, random);
+			}
+		}
+		return g;
+	}
+
+	private static void street(Graph g, String[] labels, double[] x, double[] y, int u, int v,
+			boolean arterial, Random random) {
+		if (!arterial && random.nextInt(10) == 0)
+			return;
+		double length = Math.hypot(x[u] - x[v], y[u] - y[v]);
+		double scale = arterial ? EUCLIDEAN_SCALE : STREET_SCALE;
+		g.insertEdge(labels[u], labels[v], (int) Math.ceil(length * scale));
+	}
+
+	/*
+	 *   write() - write g to the file at path in the GraphAlgs format: each
+	 *             vertex on a line of its own, then each edge once.  A
+	 *             directed graph's file reads back with -directed.
+	 */
+
+	public static void write(Graph g, String path) throws IOException {
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(path)))) {
+			for (int v = 0; v < g.getSize(); v++)
+				if (g.vertexAt(v) != null)
+					out.println(g.vertexAt(v).getLabel());
+
+			NeighborCursor c = g.neighborCursor();
+			for (int u = 0; u < g.getSize(); u++) {
+				if (g.vertexAt(u) == null)
+					continue;
+				for (c.start(u); c.next(); )
+					if (c.vertex() >= u || g.isDirected())
+						out.println(g.vertexAt(u).getLabel() + " "
+								+ g.vertexAt(c.vertex()).getLabel() + " " + c.weight());
+			}
+		}
+	}
+
+	private static String[] insertVertices(Graph g, int n) {
+		String[] labels = new String[n];
+		for (int v = 0; v < n; v++) {
+			labels[v] = "v" + v;
+			g.insertVertex(new Vertex(labels[v]));
+		}
+		return labels;
+	}
+}
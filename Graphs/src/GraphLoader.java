@@ -0,0 +1,313 @@
+/*
+ *    GraphLoader - a bulk loader for the GraphAlgs text format.
+ *
+ *    The file is a sequence of lines with the format
+ *          vertex                        - define a vertex
+ *          source  destination  weight   - define an edge
+ *    and any other line is skipped as ill-formatted, exactly as
+ *    GraphAlgs.main() always has.
+ *
+ *    The file is memory-mapped a window at a time and parsed straight from
+ *    the bytes: no line Strings, no tokenizer, and a label becomes a String
+ *    only the first time it is seen (see LabelTable).  Edges collect in int
+ *    lists of vertex ids and a CsrGraph is built from them with one
+ *    counting pass, so nothing is inserted one edge at a time.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class GraphLoader {
+	static final long WINDOW = 1L << 30;   // Bytes mapped at a time.
+
+	private LabelTable labels = new LabelTable();
+	private IntList src = new IntList();   // Source id of each edge.
+	private IntList dst = new IntList();   // Destination id of each edge.
+	private IntList wt = new IntList();    // Weight of each edge.
+	private int edgeCount;
+	private long lineCount;
+	private long illFormatted;
+	private long nanos;                    // Time spent reading the file.
+
+	/*
+	 *   Sink - receives each line of a scan.  Labels are passed as the
+	 *          position of their bytes in buf.
+	 */
+
+	interface Sink {
+		void vertex(ByteBuffer buf, int off, int len);
+		void edge(ByteBuffer buf, int srcOff, int srcLen, int dstOff, int dstLen, int weight);
+		void illFormatted();
+	}
+
+	private GraphLoader() {
+	}
+
+	/*
+	 *   load() - read the file at path.
+	 */
+
+	public static GraphLoader load(String path) throws IOException {
+		final GraphLoader loader = new GraphLoader();
+		long start = System.nanoTime();
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			loader.lineCount = scan(channel, 0, channel.size(), new Sink() {
+				public void vertex(ByteBuffer buf, int off, int len) {
+					loader.labels.intern(buf, off, len);
+				}
+
+				public void edge(ByteBuffer buf, int srcOff, int srcLen, int dstOff, int dstLen, int weight) {
+					loader.src.add(loader.labels.intern(buf, srcOff, srcLen));
+					loader.dst.add(loader.labels.intern(buf, dstOff, dstLen));
+					loader.wt.add(weight);
+				}
+
+				public void illFormatted() {
+					loader.illFormatted++;
+				}
+			});
+		}
+
+		loader.edgeCount = loader.src.size();
+		loader.nanos = System.nanoTime() - start;
+		return loader;
+	}
+
+	/*
+	 *   Accessors for the load statistics.
+	 */
+
+	public LabelTable getLabels() {
+		return labels;
+	}
+
+	public int getVertexCount() {
+		return labels.size();
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	public long getLineCount() {
+		return lineCount;
+	}
+
+	public long getIllFormattedCount() {
+		return illFormatted;
+	}
+
+	public double getLinesPerSecond() {
+		return (nanos == 0) ? 0 : lineCount * 1e9 / nanos;
+	}
+
+	/*
+	 *   report() - a one-line summary of the load.
+	 */
+
+	public String report() {
+		return String.format("%d lines (%d vertices, %d edges, %d ill-formatted) in %.3f s, %.0f lines/s",
+				lineCount, getVertexCount(), edgeCount, illFormatted, nanos / 1e9, getLinesPerSecond());
+	}
+
+	/*
+	 *   toCsrGraph() - build a CsrGraph of the file, directed if asked.  The
+	 *                  edge lists move into the graph, so this may be
+	 *                  called only once.
+	 */
+
+	public CsrGraph toCsrGraph() {
+		return toCsrGraph(false);
+	}
+
+	public CsrGraph toCsrGraph(boolean directed) {
+		CsrGraph g = new CsrGraph(labels.size(), directed);
+		for (int id = 0; id < labels.size(); id++)
+			g.insertVertex(new Vertex(labels.label(id)));
+
+		g.stageEdges(src, dst, wt);
+		src = dst = wt = null;
+		g.ensureBuilt();
+		return g;
+	}
+
+	/*
+	 *   insertInto() - insert the vertices and edges of the file into g,
+	 *                  skipping vertices already there.  Vertices go in in
+	 *                  order of first appearance, as GraphAlgs.main() did.
+	 */
+
+	public void insertInto(Graph g) {
+		for (int id = 0; id < labels.size(); id++)
+			if (g.retrieveVertex(labels.label(id)) == null)
+				g.insertVertex(new Vertex(labels.label(id)));
+
+		for (int e = 0; e < edgeCount; e++)
+			g.insertEdge(labels.label(src.get(e)), labels.label(dst.get(e)), wt.get(e));
+	}
+
+	/*
+	 *   scan() - parse the lines in bytes from .. to-1 of channel, which must
+	 *            start at the beginning of a line, and return the line count.
+	 *            The range is mapped WINDOW bytes at a time; a line cut by the
+	 *            end of a window is parsed from the start of the next one.
+	 */
+
+	static long scan(FileChannel channel, long from, long to, Sink sink) throws IOException {
+		long lines = 0;
+		long pos = from;
+
+		while (pos < to) {
+			int length = (int) Math.min(WINDOW, to - pos);
+			boolean last = (pos + length == to);
+			MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+
+			int lineStart = 0;
+			while (lineStart < length) {
+				int end = lineStart;
+				while (end < length && buf.get(end) != '\n')
+					end++;
+				if (end == length && !last)
+					break;   // The line continues past this window.
+
+				parseLine(buf, lineStart, end, sink);
+				lines++;
+				lineStart = end + 1;
+			}
+
+			if (lineStart == 0)
+				throw new IOException("Line longer than " + WINDOW + " bytes at offset " + pos);
+			pos += Math.min(lineStart, length);
+		}
+
+		return lines;
+	}
+
+	/*
+	 *   split() - cut the bytes of channel into about parts ranges that each
+	 *             start at the beginning of a line, returning the boundaries
+	 *             from 0 to channel.size().  Ranges may be empty.
+	 */
+
+	static long[] split(FileChannel channel, int parts) throws IOException {
+		long size = channel.size();
+		long[] bounds = new long[parts + 1];
+		ByteBuffer buf = ByteBuffer.allocate(4096);
+
+		for (int p = 1; p < parts; p++) {
+			long pos = Math.max(bounds[p - 1], size / parts * p);
+			if (pos > 0 && pos < size) {   // Move past the end of the line holding pos - 1.
+				pos--;
+				boolean found = false;
+				while (!found && pos < size) {
+					buf.clear();
+					int n = channel.read(buf, pos);
+					if (n <= 0)
+						break;
+					for (int i = 0; i < n; i++) {
+						if (buf.get(i) == '\n') {
+							pos += i + 1;
+							found = true;
+							break;
+						}
+					}
+					if (!found)
+						pos += n;
+				}
+				if (!found)
+					pos = size;
+			}
+			bounds[p] = pos;
+		}
+		bounds[parts] = size;
+		return bounds;
+	}
+
+	/*
+	 *   parseLine() - split buf[start .. end-1] on the StringTokenizer
+	 *                 delimiters and hand the line to the sink.
+	 */
+
+	private static void parseLine(ByteBuffer buf, int start, int end, Sink sink) {
+		int tokens = 0;
+		int off0 = 0, len0 = 0, off1 = 0, len1 = 0, off2 = 0, len2 = 0;
+
+		int i = start;
+		while (tokens <= 3) {
+			while (i < end && isDelimiter(buf.get(i)))
+				i++;
+			if (i == end)
+				break;
+
+			int tokenStart = i;
+			while (i < end && !isDelimiter(buf.get(i)))
+				i++;
+
+			if (tokens == 0) {
+				off0 = tokenStart;
+				len0 = i - tokenStart;
+			}
+			else if (tokens == 1) {
+				off1 = tokenStart;
+				len1 = i - tokenStart;
+			}
+			else if (tokens == 2) {
+				off2 = tokenStart;
+				len2 = i - tokenStart;
+			}
+			tokens++;
+		}
+
+		if (tokens == 1)
+			sink.vertex(buf, off0, len0);
+		else if (tokens == 3) {
+			long weight = parseInt(buf, off2, len2);
+			if (weight == Long.MIN_VALUE)
+				sink.illFormatted();
+			else
+				sink.edge(buf, off0, len0, off1, len1, (int) weight);
+		}
+		else
+			sink.illFormatted();
+	}
+
+	private static boolean isDelimiter(byte b) {
+		return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == '\n';
+	}
+
+	/*
+	 *   parseInt() - parse an optionally signed decimal int, or return
+	 *                Long.MIN_VALUE where Integer.parseInt() would throw.
+	 */
+
+	private static long parseInt(ByteBuffer buf, int off, int len) {
+		int i = off;
+		boolean negative = false;
+		if (buf.get(i) == '-' || buf.get(i) == '+') {
+			negative = buf.get(i) == '-';
+			i++;
+		}
+		if (i == off + len)
+			return Long.MIN_VALUE;
+
+		long value = 0;
+		for (; i < off + len; i++) {
+			int digit = buf.get(i) - '0';
+			if (digit < 0 || digit > 9)
+				return Long.MIN_VALUE;
+			value = value * 10 + digit;
+			if (value > (long) Integer.MAX_VALUE + 1)
+				return Long.MIN_VALUE;
+		}
+
+		value = negative ? -value : value;
+		if (value > Integer.MAX_VALUE)
+			return Long.MIN_VALUE;
+		return value;
+	}
+}
@@ -0,0 +1,370 @@
+/*
+ *    GraphSnapshot - a versioned, checksummed binary image of a graph's
+ *                    vertex labels and CSR adjacency arrays.
+ *
+ *    Writing a snapshot once lets later runs skip parsing the text edge
+ *    list: open() maps the file with FileChannel.map and bulk-copies each
+ *    section into its array, which costs little more than a memcpy.
+ *
+ *    Layout - little-endian, every section starting on an 8 byte boundary:
+ *
+ *        header       MAGIC, VERSION, flags (DIRECTED), V, E, label byte
+ *                     count, then the CRC32 of everything after the
+ *                     header followed by the header fields before it
+ *        labelStarts  int[V+1] - label i is labelBytes[labelStarts[i] ..]
+ *        labelBytes   byte[]   - UTF-8 labels back to back
+ *        offsets      int[V+1] - the CSR row offsets
+ *        targets      int[E]   - the CSR neighbor indices
+ *        weights      int[E]   - the CSR edge weights
+ *
+ *    Whether or not the checksum is verified, the header's counts must
+ *    match the file's length, the label starts and row offsets must run
+ *    in order within their sections and every neighbor index must name a
+ *    vertex, so a damaged file is reported as an IOException rather than
+ *    failing inside a later read.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntUnaryOperator;
+import java.util.zip.CRC32;
+
+public class GraphSnapshot {
+	public static final long MAGIC = 0x50414E5348505247L;   // "GRPHSNAP"
+	public static final int VERSION = 2;
+	static final int HEADER_BYTES = 64;
+	private static final int CHECKSUM_AT = 40;   // The header bytes before the checksum.
+	private static final int IO_BUFFER = 1 << 20;
+	static final int MAP_WINDOW = 1 << 30;
+	static final int DIRECTED = 1;   // Flag: each entry is a one-way edge.
+
+	/*
+	 *   Header - the fixed fields at the start of a snapshot, with the
+	 *            file position of each section.
+	 */
+
+	static class Header {
+		int version;
+		int flags;
+		int vertices;
+		long entries;
+		long labelBytes;
+		long checksum;
+
+		long labelStartsAt() {
+			return HEADER_BYTES;
+		}
+
+		long labelBytesAt() {
+			return labelStartsAt() + align(4L * vertices + 4);
+		}
+
+		long offsetsAt() {
+			return labelBytesAt() + align(labelBytes);
+		}
+
+		long targetsAt() {
+			return offsetsAt() + align(4L * vertices + 4);
+		}
+
+		long weightsAt() {
+			return targetsAt() + align(4L * entries);
+		}
+
+		long end() {
+			return weightsAt() + align(4L * entries);
+		}
+	}
+
+	private GraphSnapshot() {
+	}
+
+	/*
+	 *   isSnapshot() - return whether the file at path starts with MAGIC.
+	 */
+
+	public static boolean isSnapshot(String path) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_BYTES)
+				return false;
+			ByteBuffer buf = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+			channel.read(buf, 0);
+			return buf.getLong(0) == MAGIC;
+		}
+	}
+
+	/*
+	 *   write() - write a snapshot of g to path.  Edges removed from g but
+	 *             not yet rebuilt away are left out, and the slots of removed
+	 *             vertices are closed up as compact() would.
+	 */
+
+	public static void write(Graph g, String path) throws IOException {
+		int slots = g.getSize();
+		int[] remap = new int[slots];
+		int n = 0;
+		for (int i = 0; i < slots; i++)
+			remap[i] = (g.vertexAt(i) == null) ? -1 : n++;
+
+		// Gather the labels and adjacency as the CSR rows will be written.
+		byte[][] labels = new byte[n][];
+		long labelBytes = 0;
+		for (int i = 0; i < slots; i++) {
+			if (remap[i] == -1)
+				continue;
+			labels[remap[i]] = g.vertexAt(i).getLabel().getBytes(StandardCharsets.UTF_8);
+			labelBytes += labels[remap[i]].length;
+		}
+		if (labelBytes > Integer.MAX_VALUE)
+			throw new IOException("Labels exceed " + Integer.MAX_VALUE + " bytes");
+
+		int[] offsets = new int[n + 1];
+		IntList targets = new IntList();
+		IntList weights = new IntList();
+		NeighborCursor c = g.neighborCursor();
+		for (int i = 0; i < slots; i++) {
+			if (remap[i] == -1)
+				continue;
+			for (c.start(i); c.next(); ) {
+				targets.add(remap[c.vertex()]);
+				weights.add(c.weight());
+			}
+			offsets[remap[i] + 1] = targets.size();
+		}
+
+		Header h = new Header();
+		h.version = VERSION;
+		h.flags = g.isDirected() ? DIRECTED : 0;
+		h.vertices = n;
+		h.entries = targets.size();
+		h.labelBytes = labelBytes;
+
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			Writer out = new Writer(channel, HEADER_BYTES);
+
+			int start = 0;
+			out.putInt(0);
+			for (int i = 0; i < n; i++) {
+				start += labels[i].length;
+				out.putInt(start);
+			}
+			out.pad();
+			for (int i = 0; i < n; i++)
+				out.putBytes(labels[i]);
+			out.pad();
+			for (int i = 0; i <= n; i++)
+				out.putInt(offsets[i]);
+			out.pad();
+			for (int e = 0; e < targets.size(); e++)
+				out.putInt(targets.get(e));
+			out.pad();
+			for (int e = 0; e < weights.size(); e++)
+				out.putInt(weights.get(e));
+			out.pad();
+			out.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			header.putLong(MAGIC).putInt(h.version).putInt(h.flags).putInt(h.vertices).putInt(0)
+					.putLong(h.entries).putLong(h.labelBytes);
+			header.flip();
+			out.crc.update(header);
+			h.checksum = out.crc.getValue();
+			header.limit(HEADER_BYTES).position(CHECKSUM_AT);
+			header.putLong(h.checksum);
+			header.clear();
+			channel.write(header, 0);
+		}
+	}
+
+	/*
+	 *   open() - read the snapshot at path into a CsrGraph.  When verify is
+	 *            set the checksum is checked first, at the cost of reading
+	 *            the whole file once more.
+	 */
+
+	public static CsrGraph open(String path, boolean verify) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			Header h = readHeader(channel, verify);
+			int n = h.vertices;
+
+			int[] labelStarts = readInts(channel, h.labelStartsAt(), n + 1);
+			checkStarts(i -> labelStarts[i], n, h.labelBytes, "label starts");
+			MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, h.labelBytesAt(), h.labelBytes);
+			String[] labels = new String[n];
+			byte[] scratch = new byte[64];
+			for (int i = 0; i < n; i++) {
+				int len = labelStarts[i + 1] - labelStarts[i];
+				if (len > scratch.length)
+					scratch = new byte[len];
+				bytes.position(labelStarts[i]);
+				bytes.get(scratch, 0, len);
+				labels[i] = new String(scratch, 0, len, StandardCharsets.UTF_8);
+			}
+
+			int[] offsets = readInts(channel, h.offsetsAt(), n + 1);
+			checkStarts(i -> offsets[i], n, h.entries, "row offsets");
+			int[] targets = readInts(channel, h.targetsAt(), (int) h.entries);
+			checkTargets(e -> targets[e], (int) h.entries, n);
+			int[] weights = readInts(channel, h.weightsAt(), (int) h.entries);
+			return new CsrGraph(labels, offsets, targets, weights, (h.flags & DIRECTED) != 0);
+		}
+	}
+
+	public static CsrGraph open(String path) throws IOException {
+		return open(path, true);
+	}
+
+	/*
+	 *   readHeader() - read and check the header of a snapshot.
+	 */
+
+	static Header readHeader(FileChannel channel, boolean verify) throws IOException {
+		if (channel.size() < HEADER_BYTES)
+			throw new IOException("Not a graph snapshot: too short");
+
+		ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		if (buf.getLong() != MAGIC)
+			throw new IOException("Not a graph snapshot: bad magic number");
+
+		Header h = new Header();
+		h.version = buf.getInt();
+		h.flags = buf.getInt();
+		h.vertices = buf.getInt();
+		buf.getInt();
+		h.entries = buf.getLong();
+		h.labelBytes = buf.getLong();
+		h.checksum = buf.getLong();
+
+		if (h.version != VERSION)
+			throw new IOException("Unsupported graph snapshot version " + h.version);
+		if ((h.flags & ~DIRECTED) != 0)
+			throw new IOException("Corrupt graph snapshot: unknown flags " + h.flags);
+		if (h.vertices < 0 || h.vertices == Integer.MAX_VALUE || h.entries < 0 || h.entries > Integer.MAX_VALUE
+				|| h.labelBytes < 0 || h.labelBytes > Integer.MAX_VALUE || h.end() != channel.size())
+			throw new IOException("Corrupt graph snapshot: section sizes don't match the file");
+
+		if (verify) {
+			CRC32 crc = new CRC32();
+			for (long pos = HEADER_BYTES; pos < h.end(); pos += MAP_WINDOW)
+				crc.update(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MAP_WINDOW, h.end() - pos)));
+			buf.clear();
+			buf.limit(CHECKSUM_AT);
+			crc.update(buf);   // Then the header, so a changed count or flag shows too.
+			if (crc.getValue() != h.checksum)
+				throw new IOException("Corrupt graph snapshot: checksum mismatch");
+		}
+
+		return h;
+	}
+
+	/*
+	 *   checkStarts() - check that start(0) .. start(n) run from 0 up to
+	 *                   total without going down, as the label starts and
+	 *                   row offsets of a snapshot must.
+	 */
+
+	static void checkStarts(IntUnaryOperator start, int n, long total, String section) throws IOException {
+		if (start.applyAsInt(0) != 0 || start.applyAsInt(n) != total)
+			throw new IOException("Corrupt graph snapshot: " + section + " don't span their section");
+		for (int i = 0, prev = 0; i <= n; i++) {
+			int next = start.applyAsInt(i);
+			if (next < prev)
+				throw new IOException("Corrupt graph snapshot: " + section + " out of order at " + i);
+			prev = next;
+		}
+	}
+
+	/*
+	 *   checkTargets() - check that each of the entries neighbor indices
+	 *                    names one of the n vertices.
+	 */
+
+	static void checkTargets(IntUnaryOperator target, int entries, int n) throws IOException {
+		for (int e = 0; e < entries; e++) {
+			int t = target.applyAsInt(e);
+			if (t < 0 || t >= n)
+				throw new IOException("Corrupt graph snapshot: neighbor index " + t + " out of range");
+		}
+	}
+
+	/*
+	 *   readInts() - copy count little-endian ints at position pos into an array.
+	 */
+
+	static int[] readInts(FileChannel channel, long pos, int count) throws IOException {
+		int[] values = new int[count];
+		int window = MAP_WINDOW / 4;
+
+		for (int done = 0; done < count; done += window) {
+			int len = Math.min(window, count - done);
+			channel.map(FileChannel.MapMode.READ_ONLY, pos + 4L * done, 4L * len)
+					.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values, done, len);
+		}
+
+		return values;
+	}
+
+	static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	/*
+	 *   Writer - buffers little-endian output to a channel, keeping the
+	 *            CRC32 of everything written.
+	 */
+
+	static class Writer {
+		final FileChannel channel;
+		final ByteBuffer buf = ByteBuffer.allocateDirect(IO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+		final CRC32 crc = new CRC32();
+		long pos;        // File position of the start of buf.
+		long written;    // Bytes written since the header.
+
+		Writer(FileChannel channel, long pos) {
+			this.channel = channel;
+			this.pos = pos;
+		}
+
+		void putInt(int value) throws IOException {
+			if (buf.remaining() < 4)
+				flush();
+			buf.putInt(value);
+			written += 4;
+		}
+
+		void putBytes(byte[] bytes) throws IOException {
+			for (int off = 0; off < bytes.length; ) {
+				if (!buf.hasRemaining())
+					flush();
+				int len = Math.min(buf.remaining(), bytes.length - off);
+				buf.put(bytes, off, len);
+				off += len;
+				written += len;
+			}
+		}
+
+		void pad() throws IOException {   // Zero-fill to the next 8 byte boundary.
+			while (written % 8 != 0) {
+				if (!buf.hasRemaining())
+					flush();
+				buf.put((byte) 0);
+				written++;
+			}
+		}
+
+		void flush() throws IOException {
+			buf.flip();
+			crc.update(buf.duplicate());
+			while (buf.hasRemaining())
+				pos += channel.write(buf, pos);
+			buf.clear();
+		}
+	}
+}
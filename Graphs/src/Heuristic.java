@@ -0,0 +1,15 @@
+/*
+ *    Heuristic - an estimate of the distance between two vertices, for
+ *                PointToPoint's A* search.
+ *
+ *    The estimate must never exceed the true shortest distance (it must
+ *    be admissible) or A* may return a longer path.  If it also never
+ *    drops by more than an edge's weight across that edge (it is
+ *    consistent) A* settles each vertex once.
+ */
+
+public interface Heuristic
+{
+	public int estimate(int v, int target);   // Return a lower bound on the distance
+	                                          //   from index v to index target.
+}
@@ -0,0 +1,173 @@
+/*
+ *    HierarchyQuery - shortest path queries on a ContractionHierarchy.
+ *
+ *    A query runs Dijkstra upward from both the source and the target,
+ *    alternating between them.  Each side stops once its smallest key
+ *    reaches the best path found where the two meet, and a vertex is not
+ *    expanded ("stalled") when a higher neighbor already offers it a
+ *    shorter distance, since no shortest path can climb through it then.
+ *    On a road-like graph each side settles a few hundred vertices
+ *    however large the graph is.
+ *
+ *    Like PointToPoint, the per-vertex state is stamped with a query
+ *    number rather than cleared.  An instance belongs to one thread; the
+ *    hierarchy it reads may be shared.
+ */
+
+import java.util.Arrays;
+
+public class HierarchyQuery {
+	private final ContractionHierarchy ch;
+	private final int[][] dist;       // dist[side][v], valid when reached[side][v] == query.
+	private final int[][] pred;       // The previous vertex on each side's upward path.
+	private final int[][] reached;
+	private final IndexedHeap[] heaps;
+	private int query;                // Stamp of the current query.
+
+	/*
+	 *   HierarchyQuery() constructor - queries over ch.
+	 */
+
+	public HierarchyQuery(ContractionHierarchy ch) {
+		this.ch = ch;
+		int n = ch.getSize();
+		dist = new int[2][n];
+		pred = new int[2][n];
+		reached = new int[2][n];
+		heaps = new IndexedHeap[] { new IndexedHeap(n), new IndexedHeap(n) };
+	}
+
+	/*
+	 *   distance() - the length of the shortest path between vertex indices
+	 *                source and target, or ShortestPaths.UNREACHABLE.
+	 */
+
+	public int distance(int source, int target) {
+		return search(source, target).getDistance();
+	}
+
+	/*
+	 *   route() - the shortest path between vertex indices source and
+	 *             target, unpacked to edges of the original graph.
+	 */
+
+	public Route route(int source, int target) {
+		Route up = search(source, target);
+		if (!up.isReachable())
+			return up;
+
+		// The upward path climbs to the meeting vertex and descends again;
+		// each shortcut on it expands into the two edges it bypasses.
+		int[] packed = up.getPath();
+		IntList path = new IntList();
+		IntList stack = new IntList();
+		path.add(packed[0]);
+		for (int i = 1; i < packed.length; i++) {
+			stack.add(packed[i - 1]);
+			stack.add(packed[i]);
+			while (!stack.isEmpty()) {
+				int b = stack.removeLast();
+				int a = stack.removeLast();
+				int m = ch.middle(a, b);
+				if (m == -1)
+					path.add(b);
+				else {
+					stack.add(m);   // (a, m) comes off the stack first.
+					stack.add(b);
+					stack.add(a);
+					stack.add(m);
+				}
+			}
+		}
+		return new Route(source, target, up.getDistance(), path.toArray(), up.getSettled());
+	}
+
+	/*
+	 *   search() - the bidirectional upward search, returning the packed
+	 *              path of upward edges and shortcuts.
+	 */
+
+	private Route search(int source, int target) {
+		if (++query == Integer.MAX_VALUE) {   // The stamps wrapped; clear them for real.
+			Arrays.fill(reached[0], 0);
+			Arrays.fill(reached[1], 0);
+			query = 1;
+		}
+		heaps[0].clear();
+		heaps[1].clear();
+		reach(0, source, 0, -1);
+		reach(1, target, 0, -1);
+
+		long best = ShortestPaths.UNREACHABLE;
+		int meet = -1;
+		int settled = 0;
+		int side = 0;
+
+		while (!heaps[0].isEmpty() || !heaps[1].isEmpty()) {
+			if (heaps[side].isEmpty())
+				side = 1 - side;
+			IndexedHeap heap = heaps[side];
+			if (heap.minKey() >= best) {   // Nothing left on this side can help.
+				heap.clear();
+				continue;
+			}
+
+			int u = heap.removeMin();
+			settled++;
+			int du = dist[side][u];
+			if (reached[1 - side][u] == query && (long) du + dist[1 - side][u] < best) {
+				best = (long) du + dist[1 - side][u];
+				meet = u;
+			}
+
+			if (!stalled(side, u, du)) {
+				for (int e = ch.offsets[u]; e < ch.offsets[u + 1]; e++) {
+					int v = ch.targets[e];
+					long d = (long) du + ch.weights[e];
+					if (d < ShortestPaths.UNREACHABLE && (reached[side][v] != query || d < dist[side][v]))
+						reach(side, v, (int) d, u);
+				}
+			}
+			side = 1 - side;
+		}
+
+		if (meet == -1)
+			return new Route(source, target, ShortestPaths.UNREACHABLE, null, settled);
+
+		IntList path = new IntList();
+		for (int v = meet; v != -1; v = pred[0][v])
+			path.add(v);
+		for (int i = 0, j = path.size() - 1; i < j; i++, j--) {
+			int t = path.get(i);
+			path.set(i, path.get(j));
+			path.set(j, t);
+		}
+		for (int v = pred[1][meet]; v != -1; v = pred[1][v])
+			path.add(v);
+		return new Route(source, target, (int) best, path.toArray(), settled);
+	}
+
+	/*
+	 *   stalled() - whether a higher neighbor of u reached on this side
+	 *               already offers u a shorter distance than du.
+	 */
+
+	private boolean stalled(int side, int u, int du) {
+		for (int e = ch.offsets[u]; e < ch.offsets[u + 1]; e++) {
+			int v = ch.targets[e];
+			if (reached[side][v] == query && (long) dist[side][v] + ch.weights[e] < du)
+				return true;
+		}
+		return false;
+	}
+
+	private void reach(int side, int v, int d, int u) {
+		dist[side][v] = d;
+		pred[side][v] = u;
+		reached[side][v] = query;
+		if (heaps[side].contains(v))
+			heaps[side].decreaseKey(v, d);
+		else
+			heaps[side].insert(v, d);
+	}
+}
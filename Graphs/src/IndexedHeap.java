@@ -0,0 +1,167 @@
+/*
+ *    IndexedHeap - a 4-ary min-heap of vertex indices keyed by an int
+ *                  priority, with decrease-key.
+ *
+ *    Each index 0 .. capacity-1 is in the heap at most once, and pos[]
+ *    records where, so decreaseKey() finds its entry in O(1) and sifts
+ *    it up in O(log n).  A 4-ary heap is shallower than a binary one and
+ *    keeps the children of a node on the same cache line.
+ */
+
+import java.util.Arrays;
+
+public class IndexedHeap {
+	private static final int ARITY = 4;
+
+	private int[] heap;   // Vertex indices in heap order.
+	private int[] keys;   // keys[i] is the priority of heap[i].
+	private int[] pos;    // pos[v] is the heap position of v, or -1.
+	private int count;    // The number of entries in the heap.
+
+	/*
+	 *   IndexedHeap() constructor - indices may range over 0 .. capacity-1.
+	 */
+
+	public IndexedHeap(int capacity) {
+		heap = new int[capacity];
+		keys = new int[capacity];
+		pos = new int[capacity];
+		Arrays.fill(pos, -1);
+		count = 0;
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	/*
+	 *   contains() - return whether index v is in the heap.
+	 */
+
+	public boolean contains(int v) {
+		return pos[v] != -1;
+	}
+
+	/*
+	 *   insert() - add index v, which must not be in the heap, with priority key.
+	 */
+
+	public void insert(int v, int key) {
+		heap[count] = v;
+		keys[count] = key;
+		pos[v] = count;
+		siftUp(count++);
+	}
+
+	/*
+	 *   decreaseKey() - lower the priority of index v, already in the heap.
+	 */
+
+	public void decreaseKey(int v, int key) {
+		int i = pos[v];
+		keys[i] = key;
+		siftUp(i);
+	}
+
+	/*
+	 *   changeKey() - set the priority of index v, already in the heap, to
+	 *                 key, whether that raises or lowers it.
+	 */
+
+	public void changeKey(int v, int key) {
+		int i = pos[v];
+		int old = keys[i];
+		keys[i] = key;
+		if (key < old)
+			siftUp(i);
+		else
+			siftDown(i);
+	}
+
+	/*
+	 *   minKey() - return the smallest priority without removing it.
+	 */
+
+	public int minKey() {
+		return keys[0];
+	}
+
+	/*
+	 *   removeMin() - remove and return the index with the smallest priority.
+	 */
+
+	public int removeMin() {
+		int min = heap[0];
+		pos[min] = -1;
+		count--;
+		if (count > 0) {
+			heap[0] = heap[count];
+			keys[0] = keys[count];
+			pos[heap[0]] = 0;
+			siftDown(0);
+		}
+		return min;
+	}
+
+	/*
+	 *   clear() - empty the heap in time proportional to its size, so the
+	 *             same heap can serve many queries over a large graph.
+	 */
+
+	public void clear() {
+		for (int i = 0; i < count; i++)
+			pos[heap[i]] = -1;
+		count = 0;
+	}
+
+	private void siftUp(int i) {
+		int v = heap[i];
+		int key = keys[i];
+
+		while (i > 0) {
+			int parent = (i - 1) / ARITY;
+			if (keys[parent] <= key)
+				break;
+			heap[i] = heap[parent];   // Move the parent down a level.
+			keys[i] = keys[parent];
+			pos[heap[i]] = i;
+			i = parent;
+		}
+
+		heap[i] = v;
+		keys[i] = key;
+		pos[v] = i;
+	}
+
+	private void siftDown(int i) {
+		int v = heap[i];
+		int key = keys[i];
+
+		while (true) {
+			int first = i * ARITY + 1;
+			if (first >= count)
+				break;
+
+			int last = Math.min(first + ARITY, count);
+			int min = first;
+			for (int c = first + 1; c < last; c++)   // Find the smallest child.
+				if (keys[c] < keys[min])
+					min = c;
+
+			if (keys[min] >= key)
+				break;
+			heap[i] = heap[min];   // Move the child up a level.
+			keys[i] = keys[min];
+			pos[heap[i]] = i;
+			i = min;
+		}
+
+		heap[i] = v;
+		keys[i] = key;
+		pos[v] = i;
+	}
+}
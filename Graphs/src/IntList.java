@@ -0,0 +1,83 @@
+/*
+ *    IntList - a growable array of ints.
+ *
+ *    Used by the graph classes wherever an ArrayList<Integer> would
+ *    box every element - staging edges, building adjacency arrays
+ *    and holding frontiers of vertex indices.
+ */
+
+import java.util.Arrays;
+
+public class IntList {
+	private int[] data;   // The backing array.
+	private int count;    // The number of ints in use.
+
+	/*
+	 *   IntList() constructors - an optional argument sets the
+	 *                            initial capacity.
+	 */
+
+	public IntList() {
+		this(16);
+	}
+
+	public IntList(int capacity) {
+		data = new int[Math.max(capacity, 1)];
+		count = 0;
+	}
+
+	/*
+	 *   add() - append value to the end of the list.
+	 */
+
+	public void add(int value) {
+		if (count == data.length)
+			data = Arrays.copyOf(data, data.length * 2);   // Double when full.
+		data[count++] = value;
+	}
+
+	/*
+	 *   get()/set() - access the entry at position i.
+	 */
+
+	public int get(int i) {
+		return data[i];
+	}
+
+	public void set(int i, int value) {
+		data[i] = value;
+	}
+
+	/*
+	 *   removeLast() - remove and return the last entry, so the
+	 *                  list can double as a stack of ints.
+	 */
+
+	public int removeLast() {
+		return data[--count];
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/*
+	 *   clear() - empty the list, keeping its capacity.
+	 */
+
+	public void clear() {
+		count = 0;
+	}
+
+	/*
+	 *   toArray() - return a trimmed copy of the entries.
+	 */
+
+	public int[] toArray() {
+		return Arrays.copyOf(data, count);
+	}
+}
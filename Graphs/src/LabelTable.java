@@ -0,0 +1,142 @@
+/*
+ *    LabelTable - interns vertex labels read as raw bytes, numbering
+ *                 them 0, 1, 2, ... in order of first appearance.
+ *
+ *    Labels are looked up by hashing the bytes where they lie in the
+ *    input buffer, so the parser never builds a String for a label it
+ *    has already seen; a String is made once, when a label is new.
+ *    The table is open addressing with linear probing over an arena
+ *    holding the bytes of every label.  Each bucket packs the label's
+ *    hash beside its id, so a probe that misses costs one memory access.
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class LabelTable {
+	private long[] table;    // hash << 32 | id + 1 of each bucket, 0 if empty.
+	private int[] hashes;    // hashes[id] is the hash of label id.
+	private int[] starts;    // Label id is arena[starts[id] .. starts[id+1]-1].
+	private byte[] arena;    // The bytes of every label.
+	private String[] labels; // labels[id] is label id as a String.
+	private int count;       // The number of labels.
+
+	public LabelTable() {
+		table = new long[1024];
+		hashes = new int[256];
+		starts = new int[257];
+		arena = new byte[4096];
+		labels = new String[256];
+		count = 0;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	/*
+	 *   label() - return label id as a String.
+	 */
+
+	public String label(int id) {
+		return labels[id];
+	}
+
+	/*
+	 *   intern() - return the id of the label in buf[off .. off+len-1],
+	 *              adding it if it is new.
+	 */
+
+	public int intern(ByteBuffer buf, int off, int len) {
+		int h = hash(buf, off, len);
+		int mask = table.length - 1;
+
+		for (int b = h & mask; ; b = (b + 1) & mask) {
+			long entry = table[b];
+			if (entry == 0) {
+				int id = add(buf, off, len, h);
+				table[b] = pack(h, id);
+				if (count * 2 > table.length)   // Keep the load under 1/2.
+					rehash();
+				return id;
+			}
+			if ((int) (entry >>> 32) == h && matches((int) entry - 1, buf, off, len))
+				return (int) entry - 1;
+		}
+	}
+
+	/*
+	 *   find() - return the id of the label in buf[off .. off+len-1], or -1.
+	 *            Never modifies the table, so readers may share it.
+	 */
+
+	public int find(ByteBuffer buf, int off, int len) {
+		int h = hash(buf, off, len);
+		int mask = table.length - 1;
+
+		for (int b = h & mask; ; b = (b + 1) & mask) {
+			long entry = table[b];
+			if (entry == 0)
+				return -1;
+			if ((int) (entry >>> 32) == h && matches((int) entry - 1, buf, off, len))
+				return (int) entry - 1;
+		}
+	}
+
+	/*
+	 *   hash() - FNV-1a over the bytes of a label.
+	 */
+
+	static int hash(ByteBuffer buf, int off, int len) {
+		int h = 0x811C9DC5;
+		for (int i = off; i < off + len; i++) {
+			h ^= buf.get(i);
+			h *= 0x01000193;
+		}
+		return h ^ (h >>> 16);
+	}
+
+	private boolean matches(int id, ByteBuffer buf, int off, int len) {
+		int start = starts[id];
+		if (starts[id + 1] - start != len)
+			return false;
+		for (int i = 0; i < len; i++)
+			if (arena[start + i] != buf.get(off + i))
+				return false;
+		return true;
+	}
+
+	private int add(ByteBuffer buf, int off, int len, int h) {
+		if (count == hashes.length) {
+			hashes = Arrays.copyOf(hashes, count * 2);
+			starts = Arrays.copyOf(starts, count * 2 + 1);
+			labels = Arrays.copyOf(labels, count * 2);
+		}
+		int start = starts[count];
+		if (start + len > arena.length)
+			arena = Arrays.copyOf(arena, Math.max(arena.length * 2, start + len));
+
+		for (int i = 0; i < len; i++)
+			arena[start + i] = buf.get(off + i);
+		hashes[count] = h;
+		starts[count + 1] = start + len;
+		labels[count] = new String(arena, start, len, StandardCharsets.UTF_8);
+		return count++;
+	}
+
+	private static long pack(int h, int id) {
+		return ((long) h << 32) | (id + 1);
+	}
+
+	private void rehash() {
+		table = new long[table.length * 2];
+		int mask = table.length - 1;
+		for (int id = 0; id < count; id++) {
+			int b = hashes[id] & mask;
+			while (table[b] != 0)
+				b = (b + 1) & mask;
+			table[b] = pack(hashes[id], id);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ *    MinSpanningTree - the result of a minimum spanning tree search: the
+ *                      tree's edges and their total weight.
+ *
+ *    When the graph is disconnected this is a minimum spanning forest,
+ *    with one tree per component; isSpanning() tells the two apart.
+ *    The edges are listed lightest first, the order Edge.compareTo()
+ *    gives priority to.
+ */
+
+import java.util.Collections;
+import java.util.List;
+
+public class MinSpanningTree {
+	private List<Edge> edges;    // The edges of the tree.
+	private long totalWeight;    // The sum of their weights.
+	private int components;      // The number of trees in the forest.
+
+	/*
+	 *   MinSpanningTree() constructor - takes ownership of the list.
+	 */
+
+	public MinSpanningTree(List<Edge> edges, long totalWeight, int components)
+	{
+		this.edges = edges;
+		this.totalWeight = totalWeight;
+		this.components = components;
+	}
+
+	public List<Edge> getEdges()
+	{
+		return Collections.unmodifiableList(edges);
+	}
+
+	public long getTotalWeight()
+	{
+		return totalWeight;
+	}
+
+	public int getComponents()
+	{
+		return components;
+	}
+
+	/*
+	 *   isSpanning() - return whether the tree reaches every vertex, that
+	 *                  is, whether the graph was connected.
+	 */
+
+	public boolean isSpanning()
+	{
+		return components <= 1;
+	}
+
+	/*
+	 *   gatherEdges() - append each edge of g once, from its lower index
+	 *                   endpoint, to src/dst/wt.  Self-loops are left out
+	 *                   since no spanning tree uses them.  The edges of a
+	 *                   directed graph are all taken, as if undirected.
+	 */
+
+	static void gatherEdges(Graph g, IntList src, IntList dst, IntList wt)
+	{
+		NeighborCursor c = g.neighborCursor();
+		boolean directed = g.isDirected();
+		for (int u = 0; u < g.getSize(); u++) {
+			for (c.start(u); c.next(); ) {
+				if (c.vertex() > u || (directed && c.vertex() != u)) {
+					src.add(u);
+					dst.add(c.vertex());
+					wt.add(c.weight());
+				}
+			}
+		}
+	}
+
+	/*
+	 *   key() - order edge e by weight, then by e, packed into a long so
+	 *           that a plain sort or a min is the edge ordering.
+	 */
+
+	static long key(int weight, int e)
+	{
+		return ((long) weight << 32) | e;
+	}
+}
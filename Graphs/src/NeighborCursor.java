@@ -0,0 +1,24 @@
+/*
+ *    NeighborCursor - walks the neighbors of a vertex by index without
+ *                     allocating.
+ *
+ *    A cursor comes from Graph.neighborCursor() and can be restarted on
+ *    any vertex, so one cursor serves a whole traversal:
+ *
+ *          NeighborCursor c = g.neighborCursor();
+ *          c.start(u);
+ *          while (c.next())
+ *              ... c.vertex() ... c.weight() ...
+ *
+ *    A cursor belongs to one thread; each thread asks for its own.
+ */
+
+public interface NeighborCursor
+{
+	public void start(int v);   // Position before the first neighbor of
+	                            //   the vertex at index v.
+	public boolean next();      // Move to the next neighbor; return false
+	                            //   when there are no more.
+	public int vertex();        // Return the index of the current neighbor.
+	public int weight();        // Return the weight of the edge to it.
+}
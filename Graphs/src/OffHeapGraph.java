@@ -0,0 +1,496 @@
+/*
+ *    OffHeapGraph - a read-only graph whose arrays live outside the Java
+ *                   heap, in direct buffers or mapped from a snapshot file.
+ *
+ *    The layout is GraphSnapshot's: the CSR offsets, targets and weights,
+ *    and the labels as UTF-8 bytes with their start offsets.  map() maps
+ *    a snapshot file in place, so the graph may be larger than the heap
+ *    and the operating system pages it in as it is read; copyOf() copies
+ *    any graph into direct buffers.  Either way the collector sees a few
+ *    buffer objects, not arrays of E ints to promote and copy.
+ *
+ *    Labels are found through an open-addressing hash table, also off
+ *    the heap, keyed on String.hashCode() and checked against the label
+ *    bytes.  A directed graph gets a reverse index for inNeighborCursor().
+ *    Every array is split into chunks of CHUNK ints, so a section may
+ *    exceed the 2 GiB a single buffer can hold.
+ *
+ *    There are no Vertex objects: vertexAt() and retrieveVertex() make a
+ *    new one each call, and it has no location or visited flag to keep.
+ *    The traversals in GraphAlgs work through the cursors and VisitMarks
+ *    and do not notice.  Nothing changes once built, so any number of
+ *    threads may read at once, each with its own cursors.  The memory is
+ *    released when the graph is collected.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class OffHeapGraph implements Graph {
+	public static final int INFINITE_EDGE_WT = WtGraph.INFINITE_EDGE_WT;
+	static final int CHUNK_BITS = 28;
+	static final int CHUNK = 1 << CHUNK_BITS;   // Ints per buffer, 1 GiB.
+
+	private final int vertices;
+	private final boolean directed;
+	private final boolean allEven;
+	private final Ints labelStarts;   // Label i is labelBytes[labelStarts[i] ..].
+	private final Bytes labelBytes;
+	private final Ints offsets;       // The CSR row offsets.
+	private final Ints targets;
+	private final Ints weights;
+	private final Ints inOffsets;     // The reverse index, if directed: the
+	private final Ints inSources;     //   vertices with an edge into v are
+	private final Ints inWeights;     //   inSources[inOffsets[v] ..].
+	private final Ints labelHashes;   // String.hashCode() of each label.
+	private final Ints table;         // Hash slots: a vertex index + 1, or 0.
+	private final long tableMask;
+
+	private OffHeapGraph(int vertices, boolean directed, Ints labelStarts, Bytes labelBytes,
+			Ints offsets, Ints targets, Ints weights) {
+		this.vertices = vertices;
+		this.directed = directed;
+		this.labelStarts = labelStarts;
+		this.labelBytes = labelBytes;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+
+		// Hash every label into a table at most half full.
+		long slots = Long.highestOneBit(Math.max(1, vertices)) * 4;
+		table = Ints.allocate(slots);
+		tableMask = slots - 1;
+		labelHashes = Ints.allocate(vertices);
+		for (int v = 0; v < vertices; v++) {
+			int hash = label(v).hashCode();
+			labelHashes.set(v, hash);
+			long s = spread(hash) & tableMask;
+			while (table.get(s) != 0)
+				s = (s + 1) & tableMask;
+			table.set(s, v + 1);
+		}
+
+		if (directed) {
+			int entries = offsets.get(vertices);
+			inOffsets = Ints.allocate(vertices + 1L);
+			inSources = Ints.allocate(entries);
+			inWeights = Ints.allocate(entries);
+			for (int e = 0; e < entries; e++)
+				inOffsets.set(targets.get(e) + 1, inOffsets.get(targets.get(e) + 1) + 1);
+			for (int v = 0; v < vertices; v++)
+				inOffsets.set(v + 1, inOffsets.get(v + 1) + inOffsets.get(v));
+
+			Ints fill = Ints.allocate(vertices);   // The next free reverse entry of each vertex.
+			for (int v = 0; v < vertices; v++)
+				fill.set(v, inOffsets.get(v));
+			for (int u = 0; u < vertices; u++) {
+				for (int e = offsets.get(u); e < offsets.get(u + 1); e++) {
+					int v = targets.get(e);
+					int r = fill.get(v);
+					fill.set(v, r + 1);
+					inSources.set(r, u);
+					inWeights.set(r, weights.get(e));
+				}
+			}
+		}
+		else {
+			inOffsets = offsets;
+			inSources = targets;
+			inWeights = weights;
+		}
+
+		boolean even = true;
+		for (int v = 0; v < vertices && even; v++) {
+			int degree = degree(v);
+			if (directed)
+				even = degree != 0 && degree == inOffsets.get(v + 1) - inOffsets.get(v);
+			else
+				even = degree % 2 == 0 && degree >= 2;
+		}
+		allEven = even;
+	}
+
+	/*
+	 *   map() - map the GraphSnapshot file at path.  The file must not
+	 *           change while the graph is in use.  When verify is set the
+	 *           checksum is checked first, reading the whole file once;
+	 *           the offsets and neighbor indices are checked either way.
+	 */
+
+	public static OffHeapGraph map(String path, boolean verify) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			GraphSnapshot.Header h = GraphSnapshot.readHeader(channel, verify);
+			int n = h.vertices;
+			Ints labelStarts = Ints.map(channel, h.labelStartsAt(), n + 1L);
+			Ints offsets = Ints.map(channel, h.offsetsAt(), n + 1L);
+			GraphSnapshot.checkStarts(i -> labelStarts.get(i), n, h.labelBytes, "label starts");
+			GraphSnapshot.checkStarts(i -> offsets.get(i), n, h.entries, "row offsets");
+			Ints targets = Ints.map(channel, h.targetsAt(), h.entries);
+			GraphSnapshot.checkTargets(e -> targets.get(e), (int) h.entries, n);
+			return new OffHeapGraph(n, (h.flags & GraphSnapshot.DIRECTED) != 0, labelStarts,
+					Bytes.map(channel, h.labelBytesAt(), h.labelBytes), offsets, targets,
+					Ints.map(channel, h.weightsAt(), h.entries));
+		}
+	}
+
+	public static OffHeapGraph map(String path) throws IOException {
+		return map(path, true);
+	}
+
+	/*
+	 *   copyOf() - copy g into direct buffers.  The slots of removed
+	 *              vertices are closed up as compact() would, and removed
+	 *              edges are left out.
+	 */
+
+	public static OffHeapGraph copyOf(Graph g) {
+		int slots = g.getSize();
+		int[] remap = new int[slots];
+		int n = 0;
+		long labelLength = 0;
+		for (int i = 0; i < slots; i++) {
+			remap[i] = (g.vertexAt(i) == null) ? -1 : n++;
+			if (remap[i] != -1)
+				labelLength += g.vertexAt(i).getLabel().getBytes(StandardCharsets.UTF_8).length;
+		}
+		if (labelLength > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Labels exceed " + Integer.MAX_VALUE + " bytes");
+
+		Ints labelStarts = Ints.allocate(n + 1L);
+		Bytes labelBytes = Bytes.allocate(labelLength);
+		Ints offsets = Ints.allocate(n + 1L);
+		NeighborCursor c = g.neighborCursor();
+		long entries = 0;
+		for (int i = 0; i < slots; i++) {
+			if (remap[i] == -1)
+				continue;
+			byte[] label = g.vertexAt(i).getLabel().getBytes(StandardCharsets.UTF_8);
+			int start = labelStarts.get(remap[i]);
+			labelBytes.put(start, label);
+			labelStarts.set(remap[i] + 1, start + label.length);
+
+			for (c.start(i); c.next(); )
+				entries++;
+			if (entries > Integer.MAX_VALUE)
+				throw new IllegalArgumentException("More than " + Integer.MAX_VALUE + " adjacency entries");
+			offsets.set(remap[i] + 1, (int) entries);
+		}
+
+		Ints targets = Ints.allocate(entries);
+		Ints weights = Ints.allocate(entries);
+		int e = 0;
+		for (int i = 0; i < slots; i++) {
+			if (remap[i] == -1)
+				continue;
+			for (c.start(i); c.next(); e++) {
+				targets.set(e, remap[c.vertex()]);
+				weights.set(e, c.weight());
+			}
+		}
+
+		return new OffHeapGraph(n, g.isDirected(), labelStarts, labelBytes, offsets, targets, weights);
+	}
+
+	public void insertVertex(Vertex newVertex) {
+		throw readOnly();
+	}
+
+	public void insertEdge(String v1, String v2, int wt) {
+		throw readOnly();
+	}
+
+	public Vertex retrieveVertex(String v) {
+		int ind = indexOf(v);
+		return (ind == -1) ? null : new Vertex(label(ind));
+	}
+
+	/*
+	 * edgeWeight() - the weight of the edge between v1 and v2, found by
+	 * scanning the row of v1, or INFINITE_EDGE_WT if there is none.
+	 */
+
+	public int edgeWeight(String v1, String v2) {
+		int u = indexOf(v1), v = indexOf(v2);
+		if (u == -1 || v == -1)
+			return INFINITE_EDGE_WT;
+		for (int e = offsets.get(u); e < offsets.get(u + 1); e++)
+			if (targets.get(e) == v)
+				return weights.get(e);
+		return INFINITE_EDGE_WT;
+	}
+
+	public void removeVertex(String v) {
+		throw readOnly();
+	}
+
+	public void removeEdge(String v1, String v2) {
+		throw readOnly();
+	}
+
+	public Vertex[] neighbors(Vertex v) {
+		int u = indexOf(v.getLabel());
+		Vertex[] neighbor = new Vertex[degree(u)];
+		for (int e = offsets.get(u), k = 0; k < neighbor.length; e++, k++)
+			neighbor[k] = new Vertex(label(targets.get(e)));
+		return neighbor;
+	}
+
+	public NeighborCursor neighborCursor() {
+		return new Cursor(offsets, targets, weights);
+	}
+
+	public NeighborCursor inNeighborCursor() {
+		return new Cursor(inOffsets, inSources, inWeights);
+	}
+
+	public boolean isDirected() {
+		return directed;
+	}
+
+	public int getSize() {
+		return vertices;
+	}
+
+	public int getVertexCount() {
+		return vertices;
+	}
+
+	/*
+	 * indexOf() - look v up in the hash table, comparing its UTF-8 bytes
+	 * with those of each label whose hash matches.
+	 */
+
+	public int indexOf(String v) {
+		int hash = v.hashCode();
+		byte[] bytes = null;
+		for (long s = spread(hash) & tableMask; ; s = (s + 1) & tableMask) {
+			int ind = table.get(s) - 1;
+			if (ind == -1)
+				return -1;
+			if (labelHashes.get(ind) != hash)
+				continue;
+			if (bytes == null)
+				bytes = v.getBytes(StandardCharsets.UTF_8);
+			if (labelEquals(ind, bytes))
+				return ind;
+		}
+	}
+
+	public Vertex vertexAt(int i) {
+		return new Vertex(label(i));
+	}
+
+	/*
+	 * compact() - there are never removed slots, so every index keeps its place.
+	 */
+
+	public int[] compact() {
+		int[] remap = new int[vertices];
+		for (int i = 0; i < vertices; i++)
+			remap[i] = i;
+		return remap;
+	}
+
+	public int degree(int v) {
+		return offsets.get(v + 1) - offsets.get(v);
+	}
+
+	public boolean allEven() {
+		return allEven;
+	}
+
+	public long getVersion() {
+		return 0;   // Never changes.
+	}
+
+	public void clear() {
+		throw readOnly();
+	}
+
+	public boolean isEmpty() {
+		return vertices == 0;
+	}
+
+	public boolean isFull() {
+		return true;   // Nothing more can be inserted.
+	}
+
+	public void showStructure() {
+		System.out.println("vertexList");
+		System.out.println("----------");
+		for (int i = 0; i < vertices; i++)
+			System.out.printf("%3d  %s\n", i, label(i));
+
+		System.out.printf("\nAdjacency Lists\n---------------\n");
+		for (int i = 0; i < vertices; i++) {
+			System.out.printf("%3d|", i);
+			for (int e = offsets.get(i); e < offsets.get(i + 1); e++)
+				System.out.printf(" %d(%d)", targets.get(e), weights.get(e));
+			System.out.println();
+		}
+	}
+
+	/*
+	 * reset() - there are no visited flags to clear.
+	 */
+
+	public void reset() {
+	}
+
+	/*
+	 * label() - decode the label of vertex index v.
+	 */
+
+	private String label(int v) {
+		int start = labelStarts.get(v);
+		byte[] bytes = new byte[labelStarts.get(v + 1) - start];
+		labelBytes.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private boolean labelEquals(int v, byte[] bytes) {
+		int start = labelStarts.get(v);
+		if (labelStarts.get(v + 1) - start != bytes.length)
+			return false;
+		for (int k = 0; k < bytes.length; k++)
+			if (labelBytes.get(start + k) != bytes[k])
+				return false;
+		return true;
+	}
+
+	private static long spread(int hash) {   // Mix the high bits into the low ones.
+		long h = (hash & 0xFFFFFFFFL) * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 32);
+	}
+
+	private static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("An off-heap graph is read-only");
+	}
+
+	/*
+	 *   Cursor - walks one row of a CSR index: the forward one, or the
+	 *            reverse one for inNeighborCursor().
+	 */
+
+	private static final class Cursor implements NeighborCursor {
+		private final Ints offsets, vertex, weight;
+		private int e;     // The entry of the current neighbor.
+		private int end;   // One past the last entry of the row.
+
+		Cursor(Ints offsets, Ints vertex, Ints weight) {
+			this.offsets = offsets;
+			this.vertex = vertex;
+			this.weight = weight;
+		}
+
+		public void start(int v) {
+			e = offsets.get(v) - 1;
+			end = offsets.get(v + 1);
+		}
+
+		public boolean next() {
+			return ++e < end;
+		}
+
+		public int vertex() {
+			return vertex.get(e);
+		}
+
+		public int weight() {
+			return weight.get(e);
+		}
+	}
+
+	/*
+	 *   Ints - an array of little-endian ints in buffers of CHUNK ints.
+	 *          Only absolute gets and puts are used, so threads may share it.
+	 */
+
+	static final class Ints {
+		private final IntBuffer[] chunks;
+
+		private Ints(IntBuffer[] chunks) {
+			this.chunks = chunks;
+		}
+
+		static Ints allocate(long length) {
+			IntBuffer[] chunks = new IntBuffer[chunkCount(length, CHUNK)];
+			for (int k = 0; k < chunks.length; k++) {
+				int len = (int) Math.min(CHUNK, length - (long) k * CHUNK);
+				chunks[k] = ByteBuffer.allocateDirect(4 * len).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			}
+			return new Ints(chunks);
+		}
+
+		static Ints map(FileChannel channel, long pos, long length) throws IOException {
+			IntBuffer[] chunks = new IntBuffer[chunkCount(length, CHUNK)];
+			for (int k = 0; k < chunks.length; k++) {
+				long len = Math.min(CHUNK, length - (long) k * CHUNK);
+				chunks[k] = channel.map(FileChannel.MapMode.READ_ONLY, pos + 4L * k * CHUNK, 4 * len)
+						.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			}
+			return new Ints(chunks);
+		}
+
+		int get(long i) {
+			return chunks[(int) (i >>> CHUNK_BITS)].get((int) i & (CHUNK - 1));
+		}
+
+		void set(long i, int value) {
+			chunks[(int) (i >>> CHUNK_BITS)].put((int) i & (CHUNK - 1), value);
+		}
+	}
+
+	/*
+	 *   Bytes - an array of bytes in buffers of 4 * CHUNK bytes.
+	 */
+
+	static final class Bytes {
+		private static final int CHUNK_BYTES = 4 * CHUNK;
+		private final ByteBuffer[] chunks;
+
+		private Bytes(ByteBuffer[] chunks) {
+			this.chunks = chunks;
+		}
+
+		static Bytes allocate(long length) {
+			ByteBuffer[] chunks = new ByteBuffer[chunkCount(length, CHUNK_BYTES)];
+			for (int k = 0; k < chunks.length; k++)
+				chunks[k] = ByteBuffer.allocateDirect((int) Math.min(CHUNK_BYTES, length - (long) k * CHUNK_BYTES));
+			return new Bytes(chunks);
+		}
+
+		static Bytes map(FileChannel channel, long pos, long length) throws IOException {
+			ByteBuffer[] chunks = new ByteBuffer[chunkCount(length, CHUNK_BYTES)];
+			for (int k = 0; k < chunks.length; k++) {
+				long len = Math.min(CHUNK_BYTES, length - (long) k * CHUNK_BYTES);
+				chunks[k] = channel.map(FileChannel.MapMode.READ_ONLY, pos + (long) k * CHUNK_BYTES, len);
+			}
+			return new Bytes(chunks);
+		}
+
+		byte get(long i) {
+			return chunks[(int) (i / CHUNK_BYTES)].get((int) (i % CHUNK_BYTES));
+		}
+
+		void get(long i, byte[] dst) {
+			for (int k = 0; k < dst.length; k++)
+				dst[k] = get(i + k);
+		}
+
+		void put(long i, byte[] src) {
+			for (int k = 0; k < src.length; k++)
+				chunks[(int) ((i + k) / CHUNK_BYTES)].put((int) ((i + k) % CHUNK_BYTES), src[k]);
+		}
+	}
+
+	private static int chunkCount(long length, int chunk) {
+		return (int) Math.max(1, (length + chunk - 1) / chunk);
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ *    PageRank - the result of a PageRank computation: the rank of every
+ *               vertex slot and how the iteration converged.
+ *
+ *    The ranks of the live vertices sum to 1; a dead slot's rank is 0.
+ *    getChanges()[i] is the L1 distance between the ranks before and
+ *    after iteration i + 1, which falls geometrically at a rate of about
+ *    the damping factor.
+ */
+
+import java.util.Arrays;
+
+public class PageRank {
+	private double[] ranks;    // ranks[v] is the rank of vertex index v.
+	private double[] changes;  // The L1 change made by each iteration.
+	private boolean converged; // Whether the last change met the tolerance.
+	private long nanos;        // The time taken.
+
+	/*
+	 *   PageRank() constructor - takes ownership of the arrays.
+	 */
+
+	public PageRank(double[] ranks, double[] changes, boolean converged, long nanos)
+	{
+		this.ranks = ranks;
+		this.changes = changes;
+		this.converged = converged;
+		this.nanos = nanos;
+	}
+
+	public double[] getRanks()
+	{
+		return ranks;
+	}
+
+	public double[] getChanges()
+	{
+		return changes;
+	}
+
+	public int getIterations()
+	{
+		return changes.length;
+	}
+
+	public boolean isConverged()
+	{
+		return converged;
+	}
+
+	/*
+	 *   top() - return the indices of the k highest ranked vertices, highest
+	 *           first, ties to the lower index.  Each vertex is inserted
+	 *           into a sorted array of the best so far, so O(V k) for the
+	 *           handful a report shows.
+	 */
+
+	public int[] top(int k)
+	{
+		int[] best = new int[Math.max(0, k)];
+		int n = 0;
+		for (int v = 0; v < ranks.length; v++) {
+			if (ranks[v] <= 0 || (n == best.length && (n == 0 || ranks[v] <= ranks[best[n - 1]])))
+				continue;
+			int i = (n < best.length) ? n++ : n - 1;
+			for ( ; i > 0 && ranks[best[i - 1]] < ranks[v]; i--)
+				best[i] = best[i - 1];
+			best[i] = v;
+		}
+		return Arrays.copyOf(best, n);
+	}
+
+	/*
+	 *   report() - one line per iteration with its change, then the outcome.
+	 */
+
+	public String report()
+	{
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < changes.length; i++)
+			sb.append(String.format("iteration %3d  change %.3e\n", i + 1, changes[i]));
+		sb.append(String.format("%s after %d iterations in %.3f s",
+				converged ? "Converged" : "Stopped unconverged", changes.length, nanos / 1e9));
+		return sb.toString();
+	}
+}
@@ -0,0 +1,250 @@
+/*
+ *    ParallelBFS - a level-synchronous, direction-optimizing parallel
+ *                  breadth-first search over a CsrGraph (Beamer, Asanovic
+ *                  and Patterson).
+ *
+ *    The current and next frontiers are bitsets with one bit per vertex
+ *    index.  Each level runs on a ForkJoinPool in one of two directions:
+ *
+ *      top-down  - every frontier vertex claims its unvisited neighbors,
+ *                  using a compare-and-set on the visited bitset so each
+ *                  vertex is discovered exactly once.
+ *      bottom-up - every unvisited vertex looks for any neighbor in the
+ *                  frontier and stops at the first one.  Each task owns
+ *                  whole words of the bitsets, so no atomics are needed.
+ *
+ *    Top-down is cheaper while the frontier is small; bottom-up wins once
+ *    the frontier's edges outnumber the unexplored edges by ALPHA, and the
+ *    search drops back to top-down once the frontier shrinks below V / BETA.
+ *
+ *    In a directed graph top-down follows the edges out of the frontier and
+ *    bottom-up looks for a frontier vertex among the sources of the edges
+ *    into each unvisited vertex, through the CsrGraph's reverse index.  The
+ *    frontier's edges are then its out-edges and the unexplored edges the
+ *    in-edges of the unvisited vertices, the two scans' costs.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ParallelBFS {
+	private static final int ALPHA = 14;        // Switch to bottom-up threshold.
+	private static final int BETA = 24;         // Switch back to top-down threshold.
+	private static final int GRAIN_WORDS = 64;  // Bitset words (4096 vertices) per task.
+
+	private final ForkJoinPool pool;
+
+	/*
+	 *   ParallelBFS() constructors - run on the common pool or a given pool.
+	 */
+
+	public ParallelBFS() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	public ParallelBFS(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/*
+	 *   search() - breadth-first search of g from vertex index source.
+	 */
+
+	public BfsTree search(CsrGraph g, int source) {
+		g.ensureBuilt();
+
+		int n = g.getSize();
+		Level step = new Level(g, n);
+		step.level[source] = 0;
+		step.visited.set(source >>> 6, 1L << source);
+		step.frontier[source >>> 6] = 1L << source;
+
+		long frontierCount = 1;
+		long frontierEdges = step.outDegree(source);
+		long unexploredEdges = g.rowEnd(n - 1) - step.inDegree(source);
+		boolean topDown = true;
+		int depth = 0;
+
+		while (frontierCount > 0) {
+			if (topDown && frontierEdges > unexploredEdges / ALPHA)
+				topDown = false;
+			else if (!topDown && frontierCount < n / BETA)
+				topDown = true;
+
+			step.depth = depth + 1;
+			step.count.reset();
+			step.edges.reset();
+			step.inEdges.reset();
+			pool.invoke(new Step(step, topDown, 0, step.words));
+
+			frontierCount = step.count.sum();
+			frontierEdges = step.edges.sum();
+			unexploredEdges -= step.inEdges.sum();
+			if (frontierCount > 0)
+				depth++;
+
+			for (int i = 0; i < step.words; i++) {   // next becomes the frontier.
+				step.frontier[i] = step.next.get(i);
+				step.next.set(i, 0L);
+			}
+		}
+
+		return new BfsTree(source, step.level, step.parent, depth);
+	}
+
+	/*
+	 *   Level - the state shared by the tasks of one search.
+	 */
+
+	private static class Level {
+		final CsrGraph g;
+		final int n;
+		final int words;
+		final int[] level;
+		final int[] parent;
+		final long[] frontier;          // Vertices discovered last level.
+		final AtomicLongArray next;     // Vertices discovered this level.
+		final AtomicLongArray visited;  // Vertices discovered so far.
+		final LongAdder count = new LongAdder();    // Size of next.
+		final LongAdder edges = new LongAdder();    // Edges leaving next.
+		final LongAdder inEdges = new LongAdder();  // Edges entering next.
+		int depth;                      // The level being discovered.
+
+		Level(CsrGraph g, int n) {
+			this.g = g;
+			this.n = n;
+			words = (n + 63) >>> 6;
+			level = new int[n];
+			parent = new int[n];
+			Arrays.fill(level, -1);
+			Arrays.fill(parent, -1);
+			frontier = new long[words];
+			next = new AtomicLongArray(words);
+			visited = new AtomicLongArray(words);
+		}
+
+		int outDegree(int v) {   // Entries scanned top-down from v.
+			return g.rowEnd(v) - g.rowStart(v);
+		}
+
+		int inDegree(int v) {    // Entries scanned bottom-up for v.
+			return g.isDirected() ? g.inRowEnd(v) - g.inRowStart(v) : outDegree(v);
+		}
+	}
+
+	/*
+	 *   Step - expand one level over the bitset words lo .. hi-1.
+	 */
+
+	private static class Step extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Level s;
+		private final boolean topDown;
+		private final int lo, hi;
+
+		Step(Level s, boolean topDown, int lo, int hi) {
+			this.s = s;
+			this.topDown = topDown;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected void compute() {
+			if (hi - lo > GRAIN_WORDS) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Step(s, topDown, lo, mid), new Step(s, topDown, mid, hi));
+			}
+			else if (topDown)
+				topDown();
+			else
+				bottomUp();
+		}
+
+		private void topDown() {
+			CsrGraph g = s.g;
+			long count = 0, edges = 0, inEdges = 0;
+
+			for (int i = lo; i < hi; i++) {
+				for (long bits = s.frontier[i]; bits != 0; bits &= bits - 1) {
+					int u = (i << 6) | Long.numberOfTrailingZeros(bits);
+					for (int e = g.rowStart(u); e < g.rowEnd(u); e++) {
+						if (g.weightAt(e) == CsrGraph.INFINITE_EDGE_WT)
+							continue;
+						int v = g.targetAt(e);
+						if (claim(s.visited, v)) {
+							s.parent[v] = u;
+							s.level[v] = s.depth;
+							s.next.getAndAccumulate(v >>> 6, 1L << v, (a, b) -> a | b);
+							count++;
+							edges += s.outDegree(v);
+							inEdges += s.inDegree(v);
+						}
+					}
+				}
+			}
+
+			s.count.add(count);
+			s.edges.add(edges);
+			s.inEdges.add(inEdges);
+		}
+
+		private void bottomUp() {
+			CsrGraph g = s.g;
+			boolean directed = g.isDirected();
+			long count = 0, edges = 0, inEdges = 0;
+
+			for (int i = lo; i < hi; i++) {
+				long seen = s.visited.get(i);
+				long found = 0;
+				for (long bits = ~seen; bits != 0; bits &= bits - 1) {
+					int v = (i << 6) | Long.numberOfTrailingZeros(bits);
+					if (v >= s.n)
+						break;
+					int end = directed ? g.inRowEnd(v) : g.rowEnd(v);
+					for (int r = directed ? g.inRowStart(v) : g.rowStart(v); r < end; r++) {
+						int u = directed ? g.inSourceAt(r) : g.targetAt(r);
+						int e = directed ? g.inEntryAt(r) : r;
+						if ((s.frontier[u >>> 6] & (1L << u)) != 0
+								&& g.weightAt(e) != CsrGraph.INFINITE_EDGE_WT) {
+							s.parent[v] = u;
+							s.level[v] = s.depth;
+							found |= 1L << v;
+							count++;
+							edges += s.outDegree(v);
+							inEdges += s.inDegree(v);
+							break;   // One frontier neighbor is enough.
+						}
+					}
+				}
+				if (found != 0) {   // This task alone owns word i.
+					s.visited.set(i, seen | found);
+					s.next.set(i, found);
+				}
+			}
+
+			s.count.add(count);
+			s.edges.add(edges);
+			s.inEdges.add(inEdges);
+		}
+
+		/*
+		 *   claim() - atomically set bit v, returning whether this call set it.
+		 */
+
+		private static boolean claim(AtomicLongArray bitset, int v) {
+			int i = v >>> 6;
+			long bit = 1L << v;
+			while (true) {
+				long word = bitset.get(i);
+				if ((word & bit) != 0)
+					return false;
+				if (bitset.compareAndSet(i, word, word | bit))
+					return true;
+			}
+		}
+	}
+}
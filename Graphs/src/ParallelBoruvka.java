@@ -0,0 +1,193 @@
+/*
+ *    ParallelBoruvka - a parallel minimum spanning forest (Boruvka's
+ *                      algorithm) over the edge list of a graph.
+ *
+ *    Each round every component picks its lightest outgoing edge and all
+ *    the picked edges join the tree at once, so the number of components
+ *    at least halves per round and there are O(log V) rounds.  Finding
+ *    the lightest edges is the bulk of the work and runs on a
+ *    ForkJoinPool: each task scans a slice of the surviving edges and
+ *    lowers each endpoint component's best edge with a compare-and-set.
+ *    Edges inside a component are dropped as they are seen, so later
+ *    rounds scan less.
+ *
+ *    Edges are ordered by weight and then by position in the edge list,
+ *    the same total order Kruskal sorts by, so ties can't close a cycle
+ *    and the tree matches GraphAlgs.kruskal().
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ParallelBoruvka {
+	private static final int GRAIN = 8192;   // Edges or vertices per task.
+	private static final long NONE = Long.MAX_VALUE;
+
+	private final ForkJoinPool pool;
+
+	/*
+	 *   ParallelBoruvka() constructors - run on the common pool or a given pool.
+	 */
+
+	public ParallelBoruvka() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	public ParallelBoruvka(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/*
+	 *   spanningTree() - the minimum spanning forest of g.
+	 */
+
+	public MinSpanningTree spanningTree(Graph g) {
+		Round r = new Round(g.getSize());
+		IntList src = new IntList(), dst = new IntList(), wt = new IntList();
+		MinSpanningTree.gatherEdges(g, src, dst, wt);
+		r.src = src.toArray();
+		r.dst = dst.toArray();
+		r.wt = wt.toArray();
+
+		DisjointSets sets = new DisjointSets(r.n);
+		ArrayList<Edge> tree = new ArrayList<Edge>();
+		long total = 0;
+		int[] live = new int[r.src.length];   // The edges still between components.
+		for (int e = 0; e < live.length; e++)
+			live[e] = e;
+
+		while (live.length > 0) {
+			pool.invoke(new Roots(r, sets, 0, r.n));
+			IntList kept = pool.invoke(new Pick(r, live, 0, live.length));
+			live = kept.toArray();
+
+			boolean joined = false;
+			for (int v = 0; v < r.n; v++) {
+				long best = r.best.get(v);
+				if (best == NONE)
+					continue;
+				r.best.set(v, NONE);
+
+				int e = (int) best;   // Both ends may pick e; it joins once.
+				if (sets.union(r.src[e], r.dst[e])) {
+					tree.add(new Edge(g.vertexAt(r.src[e]), g.vertexAt(r.dst[e]), r.wt[e]));
+					total += r.wt[e];
+					joined = true;
+				}
+			}
+			if (!joined)
+				break;
+		}
+
+		Collections.sort(tree, Collections.reverseOrder());   // Lightest first.
+		return new MinSpanningTree(tree, total, g.getVertexCount() - tree.size());
+	}
+
+	/*
+	 *   Round - the arrays shared by the tasks of one search.
+	 */
+
+	private static class Round {
+		final int n;
+		final int[] comp;            // comp[v] is the root of v's component.
+		final AtomicLongArray best;  // Lightest outgoing edge key of each root.
+		int[] src, dst, wt;          // The edge list.
+
+		Round(int n) {
+			this.n = n;
+			comp = new int[n];
+			best = new AtomicLongArray(n);
+			for (int v = 0; v < n; v++)
+				best.set(v, NONE);
+		}
+	}
+
+	/*
+	 *   Roots - record the component root of vertices lo .. hi-1.  The
+	 *           forest is only read here, so the tasks can share it.
+	 */
+
+	private static class Roots extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Round r;
+		private final DisjointSets sets;
+		private final int lo, hi;
+
+		Roots(Round r, DisjointSets sets, int lo, int hi) {
+			this.r = r;
+			this.sets = sets;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Roots(r, sets, lo, mid), new Roots(r, sets, mid, hi));
+				return;
+			}
+			for (int v = lo; v < hi; v++)
+				r.comp[v] = sets.root(v);
+		}
+	}
+
+	/*
+	 *   Pick - offer each edge of live[lo .. hi-1] that joins two components
+	 *          to both of them, returning the edges that still do.
+	 */
+
+	private static class Pick extends RecursiveTask<IntList> {
+		private static final long serialVersionUID = 1L;
+
+		private final Round r;
+		private final int[] live;
+		private final int lo, hi;
+
+		Pick(Round r, int[] live, int lo, int hi) {
+			this.r = r;
+			this.live = live;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected IntList compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				Pick left = new Pick(r, live, lo, mid);
+				left.fork();
+				IntList kept = new Pick(r, live, mid, hi).compute();
+				IntList other = left.join();
+				for (int i = 0; i < other.size(); i++)
+					kept.add(other.get(i));
+				return kept;
+			}
+
+			IntList kept = new IntList();
+			for (int i = lo; i < hi; i++) {
+				int e = live[i];
+				int cu = r.comp[r.src[e]];
+				int cv = r.comp[r.dst[e]];
+				if (cu == cv)
+					continue;   // Already inside one component.
+				long key = MinSpanningTree.key(r.wt[e], e);
+				lower(r.best, cu, key);
+				lower(r.best, cv, key);
+				kept.add(e);
+			}
+			return kept;
+		}
+
+		private static void lower(AtomicLongArray best, int c, long key) {
+			while (true) {
+				long old = best.get(c);
+				if (old <= key || best.compareAndSet(c, old, key))
+					return;
+			}
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ *    PathCache - a bounded cache of single-source shortest path trees,
+ *                keyed by source vertex index.
+ *
+ *    Callers that ask for paths from the same few sources again and again
+ *    get the tree computed the first time.  The cache holds at most
+ *    capacity trees and evicts the least recently used one to make room.
+ *
+ *    Every tree belongs to the graph version it was computed at (see
+ *    Graph.getVersion()).  Each lookup compares that version with the
+ *    graph's in O(1), and any insertEdge(), removeEdge(), removeVertex()
+ *    or other change empties the cache.  Trees are not repaired in place:
+ *    the version says that the graph changed, not where.
+ *
+ *    Lookups are synchronized, so threads may share a cache over a graph
+ *    that is not being changed at the same time.  The search itself runs
+ *    outside the lock.  The trees returned are shared and must not be
+ *    modified.
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PathCache {
+	private final Graph g;
+	private final int capacity;                           // The most trees held at once.
+	private final LinkedHashMap<Integer, ShortestPaths> trees;   // In least recently used order.
+	private long version;                                 // The graph version of every tree held.
+
+	private long hits;             // Lookups answered from the cache.
+	private long misses;           // Lookups that ran a search.
+	private long evictions;        // Trees dropped to make room.
+	private long invalidations;    // Times a graph change emptied the cache.
+
+	/*
+	 *   PathCache() constructor - a cache of up to capacity trees over g.
+	 */
+
+	public PathCache(Graph g, int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Cache capacity must be positive");
+
+		this.g = g;
+		this.capacity = capacity;
+		trees = new LinkedHashMap<Integer, ShortestPaths>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Integer, ShortestPaths> eldest) {
+				if (size() <= PathCache.this.capacity)
+					return false;
+				evictions++;
+				return true;
+			}
+		};
+		version = g.getVersion();
+	}
+
+	/*
+	 *   paths() - the shortest path tree from the vertex with label source,
+	 *             or null if it isn't in the graph.
+	 */
+
+	public ShortestPaths paths(String source) {
+		int i = g.indexOf(source);
+		return (i == -1) ? null : paths(i);
+	}
+
+	/*
+	 *   paths() - the shortest path tree from the vertex at index source.
+	 */
+
+	public ShortestPaths paths(int source) {
+		long seen;
+		synchronized (this) {
+			seen = g.getVersion();
+			validate(seen);
+			ShortestPaths cached = trees.get(source);
+			if (cached != null) {
+				hits++;
+				return cached;
+			}
+			misses++;
+		}
+
+		ShortestPaths computed = GraphAlgs.dijkstra(source, g);
+
+		synchronized (this) {
+			// Keep the tree only if no change slipped in during the search.
+			if (g.getVersion() == seen && version == seen)
+				trees.put(source, computed);
+		}
+		return computed;
+	}
+
+	/*
+	 *   invalidate() - drop every cached tree.
+	 */
+
+	public synchronized void invalidate() {
+		trees.clear();
+		version = g.getVersion();
+	}
+
+	public synchronized int size() {
+		return trees.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	/*
+	 *   validate() - empty the cache if the graph changed since its trees
+	 *                were computed.
+	 */
+
+	private void validate(long current) {
+		if (current == version)
+			return;
+		if (!trees.isEmpty()) {
+			trees.clear();
+			invalidations++;
+		}
+		version = current;
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ *    PointToPoint - shortest path queries from one source to one target.
+ *
+ *    A full single-source search settles every vertex closer than the
+ *    target; these searches stop as soon as the target's distance is
+ *    known:
+ *
+ *      bidirectional() - Dijkstra from the source and from the target
+ *                        at once, always advancing the side with the
+ *                        smaller heap, until the two smallest keys add
+ *                        up to no less than the best path seen where the
+ *                        searches meet.
+ *      aStar()         - Dijkstra from the source ordered by distance
+ *                        plus a Heuristic estimate of the distance left,
+ *                        stopping when the target settles.
+ *
+ *    Edge weights must not be negative.  In a directed graph the backward
+ *    search follows edges into each vertex.  The per-vertex state is stamped
+ *    with a query number rather than cleared, so a query costs time in
+ *    proportion to what it explores, not to V.  An instance belongs to
+ *    one thread; each thread makes its own over a shared graph.
+ */
+
+public class PointToPoint {
+	private static final int FORWARD = 0, BACKWARD = 1;
+
+	private final Graph g;
+	private final NeighborCursor cursor;
+	private final NeighborCursor inCursor;   // For the backward search.
+	private Side[] sides;     // The state of the forward and backward searches.
+	private int query;        // Stamp of the current query.
+	private int settled;      // Vertices settled by the current query.
+
+	/*
+	 *   PointToPoint() constructor - queries over g.
+	 */
+
+	public PointToPoint(Graph g) {
+		this.g = g;
+		cursor = g.neighborCursor();
+		inCursor = g.inNeighborCursor();
+		sides = new Side[] { new Side(g.getSize()), new Side(g.getSize()) };
+	}
+
+	/*
+	 *   bidirectional() - the shortest path between vertex indices source
+	 *                     and target by bidirectional Dijkstra.
+	 */
+
+	public Route bidirectional(int source, int target) {
+		begin();
+		Side f = sides[FORWARD], b = sides[BACKWARD];
+		f.reach(source, 0, -1, 0);
+		b.reach(target, 0, -1, 0);
+
+		long best = ShortestPaths.UNREACHABLE;   // Shortest path seen so far.
+		int meet = (source == target) ? source : -1;
+		if (meet != -1)
+			best = 0;
+
+		while (!f.heap.isEmpty() && !b.heap.isEmpty()
+				&& (long) f.heap.minKey() + b.heap.minKey() < best) {
+			Side s = (f.heap.size() <= b.heap.size()) ? f : b;
+			Side other = (s == f) ? b : f;
+			NeighborCursor c = (s == f) ? cursor : inCursor;
+
+			int u = s.heap.removeMin();
+			s.settle(u);
+			settled++;
+			for (c.start(u); c.next(); ) {
+				int v = c.vertex();
+				long d = (long) s.dist[u] + c.weight();
+				if (d >= ShortestPaths.UNREACHABLE)
+					continue;
+				if (!s.isReached(v) || d < s.dist[v])
+					s.reach(v, (int) d, u, (int) d);
+				if (other.isReached(v) && (long) s.dist[v] + other.dist[v] < best) {
+					best = (long) s.dist[v] + other.dist[v];
+					meet = v;
+				}
+			}
+		}
+
+		if (meet == -1)
+			return new Route(source, target, ShortestPaths.UNREACHABLE, null, settled);
+
+		// Forward predecessors lead back from meet to the source, backward
+		// ones on from meet to the target.
+		IntList path = new IntList();
+		for (int v = meet; v != -1; v = f.pred[v])
+			path.add(v);
+		reverse(path);
+		for (int v = b.pred[meet]; v != -1; v = b.pred[v])
+			path.add(v);
+		return new Route(source, target, (int) best, path.toArray(), settled);
+	}
+
+	/*
+	 *   aStar() - the shortest path between vertex indices source and
+	 *             target by A* with heuristic h.  With an admissible but
+	 *             inconsistent heuristic a settled vertex may be reopened,
+	 *             so the answer stays exact.
+	 */
+
+	public Route aStar(int source, int target, Heuristic h) {
+		begin();
+		Side s = sides[FORWARD];
+		s.reach(source, 0, -1, h.estimate(source, target));
+
+		while (!s.heap.isEmpty()) {
+			int u = s.heap.removeMin();
+			s.settle(u);
+			settled++;
+			if (u == target)
+				break;
+
+			for (cursor.start(u); cursor.next(); ) {
+				int v = cursor.vertex();
+				long d = (long) s.dist[u] + cursor.weight();
+				if (d >= ShortestPaths.UNREACHABLE || (s.isReached(v) && d >= s.dist[v]))
+					continue;
+				long key = d + h.estimate(v, target);
+				s.reach(v, (int) d, u, (int) Math.min(key, ShortestPaths.UNREACHABLE - 1));
+			}
+		}
+
+		if (!s.isSettled(target))
+			return new Route(source, target, ShortestPaths.UNREACHABLE, null, settled);
+
+		IntList path = new IntList();
+		for (int v = target; v != -1; v = s.pred[v])
+			path.add(v);
+		reverse(path);
+		return new Route(source, target, s.dist[target], path.toArray(), settled);
+	}
+
+	/*
+	 *   begin() - start a new query, growing the state if the graph grew.
+	 */
+
+	private void begin() {
+		int n = g.getSize();
+		if (n > sides[FORWARD].dist.length)
+			sides = new Side[] { new Side(n), new Side(n) };
+
+		if (++query == Integer.MAX_VALUE) {   // The stamps wrapped; start over.
+			sides = new Side[] { new Side(n), new Side(n) };
+			query = 1;
+		}
+		for (Side s : sides) {
+			s.heap.clear();
+			s.query = query;
+		}
+		settled = 0;
+	}
+
+	private static void reverse(IntList list) {
+		for (int i = 0, j = list.size() - 1; i < j; i++, j--) {
+			int t = list.get(i);
+			list.set(i, list.get(j));
+			list.set(j, t);
+		}
+	}
+
+	/*
+	 *   Side - the distances, predecessors and heap of one search
+	 *          direction.  reached[v] == query when dist[v] and pred[v]
+	 *          belong to this query; settled[v] == query once v left the heap.
+	 */
+
+	private static class Side {
+		final int[] dist;
+		final int[] pred;
+		final int[] reached;
+		final int[] settled;
+		final IndexedHeap heap;
+		int query;
+
+		Side(int n) {
+			dist = new int[n];
+			pred = new int[n];
+			reached = new int[n];
+			settled = new int[n];
+			heap = new IndexedHeap(n);
+		}
+
+		boolean isReached(int v) {
+			return reached[v] == query;
+		}
+
+		boolean isSettled(int v) {
+			return settled[v] == query;
+		}
+
+		void settle(int v) {
+			settled[v] = query;
+		}
+
+		/*
+		 *   reach() - record distance d to v via u and queue v with key,
+		 *             reopening v if it was settled.
+		 */
+
+		void reach(int v, int d, int u, int key) {
+			dist[v] = d;
+			pred[v] = u;
+			reached[v] = query;
+			settled[v] = 0;
+			if (heap.contains(v))
+				heap.decreaseKey(v, key);
+			else
+				heap.insert(v, key);
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ *    Route - the result of a point-to-point shortest path query.
+ *
+ *    The path holds the vertex indices from the source to the target,
+ *    and settled counts the vertices the search settled on the way,
+ *    the measure of how much of the graph the query explored.
+ */
+
+public class Route {
+	private int source;      // Index of the source vertex.
+	private int target;      // Index of the target vertex.
+	private int distance;    // Length of the path, or ShortestPaths.UNREACHABLE.
+	private int[] path;      // The vertex indices on the path, or null.
+	private int settled;     // The number of vertices settled by the search.
+
+	/*
+	 *   Route() constructor - takes ownership of the path array.
+	 */
+
+	public Route(int source, int target, int distance, int[] path, int settled)
+	{
+		this.source = source;
+		this.target = target;
+		this.distance = distance;
+		this.path = path;
+		this.settled = settled;
+	}
+
+	public int getSource()
+	{
+		return source;
+	}
+
+	public int getTarget()
+	{
+		return target;
+	}
+
+	public int getDistance()
+	{
+		return distance;
+	}
+
+	public int getSettled()
+	{
+		return settled;
+	}
+
+	/*
+	 *   isReachable() - return whether the target can be reached.
+	 */
+
+	public boolean isReachable()
+	{
+		return path != null;
+	}
+
+	/*
+	 *   getPath() - return the vertex indices from source to target,
+	 *               or null if the target can't be reached.
+	 */
+
+	public int[] getPath()
+	{
+		return path;
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ *    ShortestPaths - the result of a single-source shortest path search.
+ *
+ *    Both arrays are indexed by vertex index (see Graph.indexOf()).
+ *    distance[v] is the length of the shortest path from the source to v,
+ *    or UNREACHABLE, and predecessor[v] is the vertex before v on that
+ *    path, or -1 for the source and for unreachable vertices.
+ */
+
+public class ShortestPaths {
+	public static final int UNREACHABLE = WtGraph.INFINITE_EDGE_WT;
+
+	private int source;          // Index of the source vertex.
+	private int[] distance;      // Shortest distance to every vertex.
+	private int[] predecessor;   // Previous vertex on each shortest path.
+
+	/*
+	 *   ShortestPaths() constructor - takes ownership of the arrays.
+	 */
+
+	public ShortestPaths(int source, int[] distance, int[] predecessor)
+	{
+		this.source = source;
+		this.distance = distance;
+		this.predecessor = predecessor;
+	}
+
+	public int getSource()
+	{
+		return source;
+	}
+
+	public int[] getDistances()
+	{
+		return distance;
+	}
+
+	public int[] getPredecessors()
+	{
+		return predecessor;
+	}
+
+	/*
+	 *   distance() - return the shortest distance to v, or UNREACHABLE.
+	 */
+
+	public int distance(int v)
+	{
+		return distance[v];
+	}
+
+	public boolean hasPathTo(int v)
+	{
+		return distance[v] != UNREACHABLE;
+	}
+
+	/*
+	 *   pathTo() - return the vertex indices on the shortest path from
+	 *              the source to v, or null if v can't be reached.
+	 */
+
+	public int[] pathTo(int v)
+	{
+		if (!hasPathTo(v))
+			return null;
+
+		int length = 0;
+		for (int u = v; u != -1; u = predecessor[u])
+			length++;
+
+		int[] path = new int[length];
+		for (int u = v; u != -1; u = predecessor[u])
+			path[--length] = u;
+
+		return path;
+	}
+}
@@ -0,0 +1,276 @@
+/*
+ *    StreamingComponents - connected components of an edge stream too
+ *                          large to hold as a graph.
+ *
+ *    Only a parent array of one int per vertex is kept; edges are joined
+ *    into it as they arrive and then forgotten.  union() is lock-free, so
+ *    any number of threads may feed edges at once: roots are linked by
+ *    compare-and-set, always the higher index under the lower, and find()
+ *    halves paths with compare-and-set as it climbs.  A lost race only
+ *    means another thread moved the forest on, so the loser retries from
+ *    the new roots.
+ *
+ *    read() takes a file in the GraphAlgs format in two passes.  The
+ *    first interns every label (see LabelTable) and the second splits the
+ *    file into ranges of whole lines and joins the edges of each range on
+ *    the pool, looking labels up without modifying the table.  Memory is
+ *    O(V) whatever the number of edges.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class StreamingComponents {
+	private static final int RANGES_PER_THREAD = 4;   // File ranges per pool thread, for balance.
+
+	private final AtomicIntegerArray parent;   // parent[x] == x when x is a root.
+	private final AtomicInteger unions;        // Successful unions so far.
+	private LabelTable labels;                 // The vertex labels, or null.
+
+	private int[] component;   // Dense component id of each vertex, as of labeledAt.
+	private int[] sizes;       // sizes[c] is the number of vertices in component c.
+	private int labeledAt;     // The union count component[] was computed at, or -1.
+
+	/*
+	 *   StreamingComponents() constructor - n vertices 0 .. n-1, each in a
+	 *                                       component of its own.
+	 */
+
+	public StreamingComponents(int n) {
+		parent = new AtomicIntegerArray(n);
+		for (int x = 0; x < n; x++)
+			parent.set(x, x);
+		unions = new AtomicInteger();
+		labeledAt = -1;
+	}
+
+	/*
+	 *   read() - the components of the graph in the file at path, ingested
+	 *            on the common pool or a given pool.
+	 */
+
+	public static StreamingComponents read(String path) throws IOException {
+		return read(path, ForkJoinPool.commonPool());
+	}
+
+	public static StreamingComponents read(String path, ForkJoinPool pool) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			final LabelTable labels = new LabelTable();
+			GraphLoader.scan(channel, 0, channel.size(), new GraphLoader.Sink() {
+				public void vertex(ByteBuffer buf, int off, int len) {
+					labels.intern(buf, off, len);
+				}
+
+				public void edge(ByteBuffer buf, int srcOff, int srcLen, int dstOff, int dstLen, int weight) {
+					labels.intern(buf, srcOff, srcLen);
+					labels.intern(buf, dstOff, dstLen);
+				}
+
+				public void illFormatted() {
+				}
+			});
+
+			StreamingComponents cc = new StreamingComponents(labels.size());
+			cc.labels = labels;
+			long[] bounds = GraphLoader.split(channel, pool.getParallelism() * RANGES_PER_THREAD);
+			try {
+				pool.invoke(new Ingest(cc, channel, bounds, 0, bounds.length - 1));
+			}
+			catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			return cc;
+		}
+	}
+
+	/*
+	 *   find() - return the root of the component holding x.
+	 */
+
+	public int find(int x) {
+		while (true) {
+			int p = parent.get(x);
+			if (p == x)
+				return x;
+			int gp = parent.get(p);
+			if (gp != p)
+				parent.compareAndSet(x, p, gp);   // Path halving; losing the race is harmless.
+			x = gp;
+		}
+	}
+
+	/*
+	 *   union() - join the components holding u and v, returning false if
+	 *             they were already the same component.  Safe to call from
+	 *             any number of threads at once.
+	 */
+
+	public boolean union(int u, int v) {
+		while (true) {
+			int ru = find(u);
+			int rv = find(v);
+			if (ru == rv)
+				return false;
+			if (ru < rv) {   // Link the higher root under the lower.
+				int t = ru;
+				ru = rv;
+				rv = t;
+			}
+			if (parent.compareAndSet(ru, ru, rv)) {
+				unions.incrementAndGet();
+				return true;
+			}
+			u = ru;   // ru stopped being a root; climb again.
+			v = rv;
+		}
+	}
+
+	public boolean connected(int u, int v) {
+		while (true) {
+			int ru = find(u);
+			int rv = find(v);
+			if (ru == rv)
+				return true;
+			if (parent.get(ru) == ru)   // ru was still a root after rv was found.
+				return false;
+		}
+	}
+
+	public int getVertexCount() {
+		return parent.length();
+	}
+
+	/*
+	 *   getComponentCount() - return the number of components.
+	 */
+
+	public int getComponentCount() {
+		return parent.length() - unions.get();
+	}
+
+	/*
+	 *   getLabels() - the vertex labels of a graph that was read(), or null.
+	 */
+
+	public LabelTable getLabels() {
+		return labels;
+	}
+
+	/*
+	 *   componentIds() - return the component of every vertex, numbered
+	 *                    0, 1, 2, ... in order of each component's lowest
+	 *                    vertex.  Call once the edges are all in.
+	 */
+
+	public int[] componentIds() {
+		label();
+		return component.clone();
+	}
+
+	/*
+	 *   componentSizes() - return the number of vertices in each component,
+	 *                      indexed by the ids of componentIds().
+	 */
+
+	public int[] componentSizes() {
+		label();
+		return sizes.clone();
+	}
+
+	/*
+	 *   sizeHistogram() - return h where h[b] is the number of components
+	 *                     with 2^b to 2^(b+1)-1 vertices.
+	 */
+
+	public int[] sizeHistogram() {
+		label();
+		int largest = 0;
+		for (int s : sizes)
+			largest = Math.max(largest, s);
+
+		int[] h = new int[32 - Integer.numberOfLeadingZeros(Math.max(largest, 1))];
+		for (int s : sizes)
+			h[31 - Integer.numberOfLeadingZeros(s)]++;
+		return h;
+	}
+
+	/*
+	 *   label() - number the components and count their sizes, unless
+	 *             nothing was joined since the last time.  Roots are the
+	 *             lowest vertex of their component, so they are met first.
+	 */
+
+	private synchronized void label() {
+		int done = unions.get();
+		if (labeledAt == done)
+			return;
+
+		int n = parent.length();
+		component = new int[n];
+		sizes = new int[n - done];
+		int next = 0;
+		for (int x = 0; x < n; x++) {
+			int r = find(x);
+			component[x] = (r == x) ? next++ : component[r];
+			sizes[component[x]]++;
+		}
+		labeledAt = done;
+	}
+
+	/*
+	 *   Ingest - join the edges of file ranges lo .. hi-1; each leaf
+	 *            scans one range.
+	 */
+
+	private static class Ingest extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final StreamingComponents cc;
+		private final FileChannel channel;
+		private final long[] bounds;
+		private final int lo, hi;
+
+		Ingest(StreamingComponents cc, FileChannel channel, long[] bounds, int lo, int hi) {
+			this.cc = cc;
+			this.channel = channel;
+			this.bounds = bounds;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		protected void compute() {
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new Ingest(cc, channel, bounds, lo, mid),
+						new Ingest(cc, channel, bounds, mid, hi));
+				return;
+			}
+
+			final LabelTable labels = cc.labels;
+			try {
+				GraphLoader.scan(channel, bounds[lo], bounds[hi], new GraphLoader.Sink() {
+					public void vertex(ByteBuffer buf, int off, int len) {
+					}
+
+					public void edge(ByteBuffer buf, int srcOff, int srcLen, int dstOff, int dstLen, int weight) {
+						cc.union(labels.find(buf, srcOff, srcLen), labels.find(buf, dstOff, dstLen));
+					}
+
+					public void illFormatted() {
+					}
+				});
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
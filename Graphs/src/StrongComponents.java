@@ -0,0 +1,70 @@
+/*
+ *    StrongComponents - the result of a strongly connected components
+ *                       search: the component of every vertex.
+ *
+ *    Components are numbered 0 .. getCount()-1 in reverse topological
+ *    order, the order Tarjan's algorithm finishes them in: every edge
+ *    between two components runs from the higher number to the lower.
+ *    The slot of a removed vertex belongs to no component, -1.
+ */
+
+public class StrongComponents {
+	private int[] component;   // component[v] is the component of vertex index v.
+	private int count;         // The number of components.
+
+	/*
+	 *   StrongComponents() constructor - takes ownership of the array.
+	 */
+
+	public StrongComponents(int[] component, int count)
+	{
+		this.component = component;
+		this.count = count;
+	}
+
+	public int getCount()
+	{
+		return count;
+	}
+
+	/*
+	 *   componentOf() - return the component of vertex index v.
+	 */
+
+	public int componentOf(int v)
+	{
+		return component[v];
+	}
+
+	public boolean stronglyConnected(int u, int v)
+	{
+		return component[u] != -1 && component[u] == component[v];
+	}
+
+	/*
+	 *   getSizes() - return the number of vertices in each component.
+	 */
+
+	public int[] getSizes()
+	{
+		int[] sizes = new int[count];
+		for (int c : component)
+			if (c != -1)
+				sizes[c]++;
+		return sizes;
+	}
+
+	/*
+	 *   isAcyclic() - return whether every component is a single vertex,
+	 *                 so the graph is a DAG (self-loops aside).
+	 */
+
+	public boolean isAcyclic()
+	{
+		int vertices = 0;
+		for (int c : component)
+			if (c != -1)
+				vertices++;
+		return count == vertices;
+	}
+}
@@ -0,0 +1,264 @@
+/*
+ *    Traversal - a breadth or depth first search consumed one vertex at a
+ *                time, as an iterator, an IntStream, a visitor or a search
+ *                for a target.
+ *
+ *          int hit = Traversal.breadthFirst(g, start).limitDepth(3)
+ *                        .find(v -> g.degree(v) > 100);
+ *
+ *          Traversal.depthFirst(g, start).stream().limit(10).toArray();
+ *
+ *    The search runs only as far as the caller reads: a vertex's
+ *    neighbors are looked at when the vertex after it is asked for, so
+ *    stopping at the first hit costs what was explored up to it, not the
+ *    whole graph.  The orders are those of GraphAlgs.breadthFirstOrder()
+ *    and depthFirstOrder().  depth() is the number of edges from the
+ *    start along the search tree, and limitDepth(d) keeps the search
+ *    within d of it while still reaching every vertex within d edges.
+ *    Depth first, a vertex may first be met along a longer path than its
+ *    shortest, so under a limit it is searched from again whenever it is
+ *    met nearer the start; it is still returned only once, with the
+ *    depth it was first met at.
+ *
+ *    A Traversal belongs to one thread and is used once.  Its VisitMarks
+ *    go back to the pool when it is exhausted or closed.
+ */
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+public class Traversal implements PrimitiveIterator.OfInt, AutoCloseable {
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+
+	/*
+	 *   Visitor - called with each vertex reached and its depth; returns
+	 *             false to stop the search.
+	 */
+
+	public interface Visitor {
+		boolean visit(int v, int depth);
+	}
+
+	private final Graph g;
+	private final boolean breadth;     // Breadth first, or depth first.
+	private final NeighborCursor cursor;
+	private VisitMarks marks;          // null once released.
+	private final IntList pending;     // The queue or stack of vertices,
+	private final IntList depths;      //   and the depth of each.
+	private int front;                 // The next queue entry to leave.
+	private int maxDepth = UNLIMITED;
+	private boolean started;
+	private int current = -1;          // The vertex last returned,
+	private int currentDepth;          //   and its depth;
+	private boolean expanded = true;   //   whether its neighbors are pending.
+	private int staged = -1;           // The next vertex, found by hasNext().
+	private int stagedDepth;
+	private int[] nearest;             // Depth first under a limit, the least
+	                                   //   depth each visited vertex was met at.
+
+	private Traversal(Graph g, int start, boolean breadth) {
+		if (start < 0 || start >= g.getSize() || g.vertexAt(start) == null)
+			throw new IllegalArgumentException("No vertex at index " + start);
+
+		this.g = g;
+		this.breadth = breadth;
+		cursor = g.neighborCursor();
+		marks = VisitMarks.acquire(g.getSize());
+		pending = new IntList();
+		depths = new IntList();
+		pending.add(start);
+		depths.add(0);
+		if (breadth)
+			marks.visit(start);   // A queue marks vertices as they enter.
+	}
+
+	/*
+	 *   breadthFirst(), depthFirst() - a search of g from vertex index start.
+	 */
+
+	public static Traversal breadthFirst(Graph g, int start) {
+		return new Traversal(g, start, true);
+	}
+
+	public static Traversal depthFirst(Graph g, int start) {
+		return new Traversal(g, start, false);
+	}
+
+	/*
+	 *   limitDepth() - go no further than maxDepth edges from the start.
+	 *                  Only before the first vertex is read.
+	 */
+
+	public Traversal limitDepth(int maxDepth) {
+		if (started)
+			throw new IllegalStateException("The traversal has already started");
+		if (maxDepth < 0)
+			throw new IllegalArgumentException("Negative depth limit " + maxDepth);
+		this.maxDepth = maxDepth;
+		if (!breadth)
+			nearest = new int[g.getSize()];
+		return this;
+	}
+
+	public boolean hasNext() {
+		started = true;
+		if (staged != -1)
+			return true;
+		if (marks == null)
+			return false;
+		expand();
+
+		if (breadth) {
+			if (front < pending.size()) {
+				stagedDepth = depths.get(front);
+				staged = pending.get(front++);
+			}
+		}
+		else {
+			while (!pending.isEmpty()) {   // Skip vertices reached again since they were pushed.
+				int v = pending.removeLast();
+				int d = depths.removeLast();
+				if (!marks.visit(v)) {
+					if (nearest != null)
+						nearest[v] = d;
+					staged = v;
+					stagedDepth = d;
+					break;
+				}
+				if (nearest != null && d < nearest[v]) {   // Met nearer: search on from here.
+					nearest[v] = d;
+					push(v, d);
+				}
+			}
+		}
+
+		if (staged == -1)
+			close();
+		return staged != -1;
+	}
+
+	public int nextInt() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		current = staged;
+		currentDepth = stagedDepth;
+		expanded = false;
+		staged = -1;
+		return current;
+	}
+
+	/*
+	 *   depth() - the depth of the vertex last returned.
+	 */
+
+	public int depth() {
+		return currentDepth;
+	}
+
+	/*
+	 *   forEach() - pass each vertex to visitor until it returns false or
+	 *               the search ends, and return the number visited.
+	 */
+
+	public int forEach(Visitor visitor) {
+		int count = 0;
+		while (hasNext()) {
+			int v = nextInt();
+			count++;
+			if (!visitor.visit(v, currentDepth))
+				break;
+		}
+		close();
+		return count;
+	}
+
+	/*
+	 *   find() - the first vertex in the search order that satisfies
+	 *            target, or -1.  The search stops there.
+	 */
+
+	public int find(IntPredicate target) {
+		while (hasNext()) {
+			int v = nextInt();
+			if (target.test(v)) {
+				close();
+				return v;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 *   spliterator(), stream() - the remaining vertices, read lazily.
+	 */
+
+	public Spliterator.OfInt spliterator() {
+		return Spliterators.spliteratorUnknownSize(this,
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+
+	public IntStream stream() {
+		return StreamSupport.intStream(spliterator(), false).onClose(this::close);
+	}
+
+	/*
+	 *   toArray() - the remaining vertices in order.
+	 */
+
+	public int[] toArray() {
+		IntList order = new IntList();
+		while (hasNext())
+			order.add(nextInt());
+		return order.toArray();
+	}
+
+	/*
+	 *   close() - end the search and give back its marks.
+	 */
+
+	public void close() {
+		if (marks != null) {
+			VisitMarks.release(marks);
+			marks = null;
+			pending.clear();
+			depths.clear();
+		}
+	}
+
+	/*
+	 *   expand() - queue or push the neighbors of the vertex last returned.
+	 */
+
+	private void expand() {
+		if (!expanded) {
+			expanded = true;
+			push(current, currentDepth);
+		}
+	}
+
+	/*
+	 *   push() - queue or push the neighbors of u, at depth d, that are
+	 *            unvisited or, depth first under a limit, would be met
+	 *            nearer than before; none if they would pass the limit.
+	 */
+
+	private void push(int u, int d) {
+		if (d >= maxDepth)
+			return;
+
+		for (cursor.start(u); cursor.next(); ) {
+			int v = cursor.vertex();
+			boolean fresh = breadth ? !marks.visit(v)
+					: !marks.isVisited(v) || (nearest != null && d + 1 < nearest[v]);
+			if (fresh) {
+				pending.add(v);
+				depths.add(d + 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,665 @@
+/*
+ *    VersionedGraph - a weighted graph whose readers work on immutable
+ *                     snapshots while a writer goes on changing it.
+ *
+ *    snapshot() returns a read-only Graph frozen at the current version.
+ *    A reader may traverse it for as long as it likes without locking:
+ *    the writer never changes anything a snapshot can see, and a reader
+ *    never waits for the writer.  Calls on the VersionedGraph itself see
+ *    every change at once and belong to the writer.
+ *
+ *    The adjacency lists live in blocks of BLOCK vertices, copied on
+ *    write.  Every block and row carries the generation it was made in,
+ *    and taking a snapshot starts a new generation, freezing whatever
+ *    exists.  The first change to a frozen block, row or label map copies
+ *    it; later changes in the same generation update the copy in place.
+ *    A write costs O(degree), plus once per generation O(V / BLOCK) for
+ *    the block directory and, if a vertex comes or goes, O(V) for the
+ *    label map.  A snapshot costs O(1), and asking again with no change
+ *    in between returns the same one.
+ *
+ *    Removed vertices leave dead slots, as in WtGraph, until compact().
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class VersionedGraph implements Graph {
+	public static final int INFINITE_EDGE_WT = WtGraph.INFINITE_EDGE_WT;
+	static final int BLOCK_BITS = 6;
+	static final int BLOCK = 1 << BLOCK_BITS;   // Vertices per block.
+	private static final int[] NO_EDGES = new int[0];
+
+	private Block[] blocks; // blocks[v >> BLOCK_BITS] holds vertex v, or is null.
+	private int blocksGen; // The generation that may change blocks[] in place.
+	private HashMap<String, Integer> labelIndex; // Maps a label to its index.
+	private int labelsGen; // The generation that may change labelIndex in place.
+	private IntList freeSlots; // Slots of removed vertices, reused by insertVertex.
+	private int size; // One past the highest vertex slot in use.
+	private int count; // The number of vertices in the graph.
+	private int oddCount; // The number of vertices of odd degree.
+	private int zeroCount; // The number of vertices with no neighbors.
+	private long version; // Bumped by every change to the vertices or edges.
+	private int gen; // The current generation; older ones are frozen.
+	private Snapshot published; // The latest snapshot taken, or null.
+
+	/*
+	 * VersionedGraph() constructor - an empty graph that grows as needed.
+	 */
+
+	public VersionedGraph() {
+		freeSlots = new IntList();
+		clear();
+	}
+
+	/*
+	 * snapshot() - return a read-only view of the graph as it is now.  It
+	 * never changes, whatever happens to the graph afterwards, and any
+	 * number of threads may read it at once.
+	 */
+
+	public synchronized Graph snapshot() {
+		if (published == null || published.version != version) {
+			published = new Snapshot(blocks, labelIndex, size, count, oddCount, zeroCount, version);
+			gen++; // Freeze everything the snapshot can reach.
+		}
+		return published;
+	}
+
+	/*
+	 * insertVertex() - add a new vertex to the graph.
+	 */
+
+	public synchronized void insertVertex(Vertex newVertex) {
+		int slot = freeSlots.isEmpty() ? size++ : freeSlots.removeLast();
+		if ((slot >> BLOCK_BITS) >= blocks.length) {
+			blocks = Arrays.copyOf(blocks, blocks.length * 2);
+			blocksGen = gen;
+		}
+
+		Block block = writableBlock(slot);
+		int i = slot & (BLOCK - 1);
+		block.vertices[i] = newVertex;
+		block.targets[i] = NO_EDGES;
+		block.weights[i] = NO_EDGES;
+		block.degree[i] = 0;
+		writableLabels().put(newVertex.getLabel(), slot);
+		zeroCount++;
+		count++;
+		version++;
+	}
+
+	/*
+	 * insertEdge() - insert a new edge with weight wt between vertices with
+	 * labels v1 and v2.  Inserting an existing edge replaces its weight.
+	 */
+
+	public synchronized void insertEdge(String v1, String v2, int wt) {
+		int i = indexOf(v1);
+		int j = indexOf(v2);
+
+		if (i == -1 || j == -1) // Vertex not in graph.
+			return;
+
+		setEdge(i, j, wt);
+		setEdge(j, i, wt);
+		version++;
+	}
+
+	public synchronized Vertex retrieveVertex(String v) {
+		int ind = indexOf(v);
+		return (ind == -1) ? null : vertexAt(ind);
+	}
+
+	/*
+	 * edgeWeight() - return the weight of the edge between the vertices with
+	 * labels v1 and v2, or INFINITE_EDGE_WT if there is no such edge.
+	 */
+
+	public synchronized int edgeWeight(String v1, String v2) {
+		return weight(blocks, indexOf(v1), indexOf(v2));
+	}
+
+	/*
+	 * removeVertex() - remove from the graph the vertex with label v along
+	 * with its edges, leaving its slot dead.
+	 */
+
+	public synchronized void removeVertex(String v) {
+		int ind = indexOf(v); // Get the vertex's array index.
+
+		if (ind == -1) // Vertex not in graph.
+			return;
+
+		Block block = blocks[ind >> BLOCK_BITS];
+		int i = ind & (BLOCK - 1);
+		int[] neighbors = Arrays.copyOf(block.targets[i], block.degree[i]);
+		for (int w : neighbors)
+			if (w != ind)
+				setEdge(w, ind, INFINITE_EDGE_WT);
+
+		block = writableBlock(ind);
+		countDegree(block.degree[i], -1); // The slot no longer counts as a vertex.
+		block.vertices[i] = null;
+		block.targets[i] = NO_EDGES;
+		block.weights[i] = NO_EDGES;
+		block.degree[i] = 0;
+
+		writableLabels().remove(v);
+		freeSlots.add(ind);
+		count--;
+		version++;
+	}
+
+	/*
+	 * removeEdge() - remove the edge between the vertices with labels v1 and
+	 * v2.
+	 */
+
+	public synchronized void removeEdge(String v1, String v2) {
+		int i = indexOf(v1);
+		int j = indexOf(v2);
+
+		if (i == -1 || j == -1) // Vertex not in graph.
+			return;
+
+		setEdge(i, j, INFINITE_EDGE_WT);
+		setEdge(j, i, INFINITE_EDGE_WT);
+		version++;
+	}
+
+	/*
+	 * compact() - move the vertices down over the dead slots, keeping their
+	 * order, and return remap where remap[i] is the new index of the vertex
+	 * at old index i, or -1 if slot i was dead.  Builds new blocks in
+	 * O(V + E), leaving snapshots their old ones.
+	 */
+
+	public synchronized int[] compact() {
+		int[] remap = new int[size];
+		int live = 0;
+		for (int i = 0; i < size; i++)
+			remap[i] = (vertexAt(i) == null) ? -1 : live++;
+
+		Block[] old = blocks;
+		blocks = new Block[Math.max(blocks.length, 1)];
+		blocksGen = gen;
+		labelIndex = new HashMap<String, Integer>(live * 2);
+		labelsGen = gen;
+
+		for (int u = 0; u < size; u++) {
+			if (remap[u] == -1)
+				continue;
+			Block from = old[u >> BLOCK_BITS];
+			int i = u & (BLOCK - 1);
+			Block to = writableBlock(remap[u]);
+			int k = remap[u] & (BLOCK - 1);
+
+			int degree = from.degree[i];
+			to.vertices[k] = from.vertices[i];
+			to.targets[k] = new int[degree];
+			to.weights[k] = Arrays.copyOf(from.weights[i], degree);
+			for (int e = 0; e < degree; e++)
+				to.targets[k][e] = remap[from.targets[i][e]];
+			to.degree[k] = degree;
+			to.rowGen[k] = gen;
+			labelIndex.put(to.vertices[k].getLabel(), remap[u]);
+		}
+
+		freeSlots.clear();
+		size = live;
+		version++; // Indices changed.
+		return remap;
+	}
+
+	public synchronized NeighborCursor neighborCursor() {
+		return new Cursor(this, null);
+	}
+
+	/*
+	 * inNeighborCursor() - the graph is undirected, so the same as
+	 * neighborCursor().
+	 */
+
+	public NeighborCursor inNeighborCursor() {
+		return neighborCursor();
+	}
+
+	public boolean isDirected() {
+		return false;
+	}
+
+	public synchronized Vertex[] neighbors(Vertex v) {
+		return neighbors(blocks, indexOf(v.getLabel()));
+	}
+
+	/*
+	 * getSize() - return the number of vertex slots, live or dead.
+	 */
+
+	public synchronized int getSize() {
+		return size;
+	}
+
+	public synchronized int getVertexCount() {
+		return count;
+	}
+
+	public synchronized int indexOf(String v) {
+		Integer ind = labelIndex.get(v);
+		return (ind == null) ? -1 : ind;
+	}
+
+	public synchronized Vertex vertexAt(int i) {
+		return vertex(blocks, i);
+	}
+
+	public synchronized int degree(int v) {
+		return blocks[v >> BLOCK_BITS].degree[v & (BLOCK - 1)];
+	}
+
+	/*
+	 * allEven() - return whether every vertex has even, non-zero degree, in
+	 * O(1) from the counts kept as edges change.
+	 */
+
+	public synchronized boolean allEven() {
+		return oddCount == 0 && zeroCount == 0;
+	}
+
+	/*
+	 * getVersion() - return a counter bumped by every change to the vertices
+	 * or edges.  A snapshot reports the version it was taken at.
+	 */
+
+	public synchronized long getVersion() {
+		return version;
+	}
+
+	/*
+	 * clear() - remove all vertices and edges from the graph.  Snapshots
+	 * keep what they had.
+	 */
+
+	public synchronized void clear() {
+		blocks = new Block[1];
+		blocksGen = gen;
+		labelIndex = new HashMap<String, Integer>();
+		labelsGen = gen;
+		freeSlots.clear();
+		size = 0;
+		count = 0;
+		oddCount = 0;
+		zeroCount = 0;
+		version++;
+	}
+
+	public synchronized boolean isEmpty() {
+		return (count == 0);
+	}
+
+	/*
+	 * isFull() - the block directory grows, so a VersionedGraph is never full.
+	 */
+
+	public boolean isFull() {
+		return false;
+	}
+
+	public synchronized void showStructure() {
+		show(blocks, size);
+	}
+
+	public synchronized void reset() {
+		reset(blocks, size);
+	}
+
+	/*
+	 * setEdge() - set the weight of the entry u -> v, removing it if wt is
+	 * INFINITE_EDGE_WT, and keep the degree counts in step.
+	 */
+
+	private void setEdge(int u, int v, int wt) {
+		int i = u & (BLOCK - 1);
+		int e = find(blocks[u >> BLOCK_BITS], i, v);
+		if (e == -1 && wt == INFINITE_EDGE_WT)
+			return; // Nothing to remove.
+
+		Block block = writableBlock(u);
+		int degree = block.degree[i];
+		if (e == -1) { // A new neighbor.
+			writableRow(block, i, degree + 1);
+			block.targets[i][degree] = v;
+			block.weights[i][degree] = wt;
+			adjustDegree(block, i, 1);
+		}
+		else if (wt == INFINITE_EDGE_WT) { // A lost neighbor; the last entry fills its place.
+			writableRow(block, i, degree);
+			block.targets[i][e] = block.targets[i][degree - 1];
+			block.weights[i][e] = block.weights[i][degree - 1];
+			adjustDegree(block, i, -1);
+		}
+		else {
+			writableRow(block, i, degree);
+			block.weights[i][e] = wt;
+		}
+	}
+
+	private void adjustDegree(Block block, int i, int change) {
+		countDegree(block.degree[i], -1);
+		block.degree[i] += change;
+		countDegree(block.degree[i], 1);
+	}
+
+	private void countDegree(int d, int change) {
+		if (d % 2 != 0)
+			oddCount += change;
+		if (d == 0)
+			zeroCount += change;
+	}
+
+	/*
+	 * writableBlock() - return the block holding vertex v, copying it and
+	 * the directory first if they belong to a frozen generation.
+	 */
+
+	private Block writableBlock(int v) {
+		if (blocksGen != gen) {
+			blocks = blocks.clone();
+			blocksGen = gen;
+		}
+
+		int b = v >> BLOCK_BITS;
+		Block block = blocks[b];
+		if (block == null)
+			blocks[b] = block = new Block(gen);
+		else if (block.gen != gen)
+			blocks[b] = block = block.copy(gen);
+		return block;
+	}
+
+	/*
+	 * writableRow() - make row i of a writable block safe to change in place,
+	 * with room for at least capacity entries.
+	 */
+
+	private void writableRow(Block block, int i, int capacity) {
+		int length = block.targets[i].length;
+		if (block.rowGen[i] == gen && length >= capacity)
+			return;
+
+		if (length < capacity)
+			length = Math.max(4, Math.max(capacity, length * 2));
+		block.targets[i] = Arrays.copyOf(block.targets[i], length);
+		block.weights[i] = Arrays.copyOf(block.weights[i], length);
+		block.rowGen[i] = gen;
+	}
+
+	private HashMap<String, Integer> writableLabels() {
+		if (labelsGen != gen) {
+			labelIndex = new HashMap<String, Integer>(labelIndex);
+			labelsGen = gen;
+		}
+		return labelIndex;
+	}
+
+	/*
+	 * The reads shared by the graph and its snapshots.
+	 */
+
+	private static int find(Block block, int i, int v) {
+		if (block == null)
+			return -1;
+		int[] targets = block.targets[i];
+		for (int e = 0; e < block.degree[i]; e++)
+			if (targets[e] == v)
+				return e;
+		return -1;
+	}
+
+	private static int weight(Block[] blocks, int u, int v) {
+		if (u == -1 || v == -1)
+			return INFINITE_EDGE_WT;
+
+		Block block = blocks[u >> BLOCK_BITS];
+		int e = find(block, u & (BLOCK - 1), v);
+		return (e == -1) ? INFINITE_EDGE_WT : block.weights[u & (BLOCK - 1)][e];
+	}
+
+	private static Vertex vertex(Block[] blocks, int v) {
+		Block block = blocks[v >> BLOCK_BITS];
+		return (block == null) ? null : block.vertices[v & (BLOCK - 1)];
+	}
+
+	private static Vertex[] neighbors(Block[] blocks, int u) {
+		Block block = blocks[u >> BLOCK_BITS];
+		int i = u & (BLOCK - 1);
+		Vertex[] neighbor = new Vertex[block.degree[i]];
+		for (int e = 0; e < neighbor.length; e++)
+			neighbor[e] = vertex(blocks, block.targets[i][e]);
+		return neighbor;
+	}
+
+	private static void show(Block[] blocks, int size) {
+		System.out.println("vertexList");
+		System.out.println("----------");
+		for (int v = 0; v < size; v++)
+			if (vertex(blocks, v) != null)
+				System.out.printf("%3d  %s\n", v, vertex(blocks, v).getLabel());
+
+		System.out.printf("\nAdjacency Lists\n---------------\n");
+		for (int v = 0; v < size; v++) {
+			if (vertex(blocks, v) == null)
+				continue;
+			Block block = blocks[v >> BLOCK_BITS];
+			int i = v & (BLOCK - 1);
+			System.out.printf("%3d|", v);
+			for (int e = 0; e < block.degree[i]; e++)
+				System.out.printf(" %d(%d)", block.targets[i][e], block.weights[i][e]);
+			System.out.println();
+		}
+	}
+
+	private static void reset(Block[] blocks, int size) {
+		for (int v = 0; v < size; v++)
+			if (vertex(blocks, v) != null)
+				vertex(blocks, v).reset();
+	}
+
+	/*
+	 * Block - the vertices and adjacency rows of BLOCK consecutive indices.
+	 * Row i holds degree[i] entries at the front of targets[i] and
+	 * weights[i], which may be shared with older copies of the block until
+	 * rowGen[i] says otherwise.
+	 */
+
+	private static final class Block {
+		final Vertex[] vertices = new Vertex[BLOCK];
+		final int[][] targets = new int[BLOCK][];
+		final int[][] weights = new int[BLOCK][];
+		final int[] degree = new int[BLOCK];
+		final int[] rowGen = new int[BLOCK];
+		final int gen;
+
+		Block(int gen) {
+			this.gen = gen;
+			Arrays.fill(targets, NO_EDGES);
+			Arrays.fill(weights, NO_EDGES);
+			Arrays.fill(rowGen, -1);
+		}
+
+		Block copy(int gen) { // The rows stay shared until written.
+			Block b = new Block(gen);
+			System.arraycopy(vertices, 0, b.vertices, 0, BLOCK);
+			System.arraycopy(targets, 0, b.targets, 0, BLOCK);
+			System.arraycopy(weights, 0, b.weights, 0, BLOCK);
+			System.arraycopy(degree, 0, b.degree, 0, BLOCK);
+			System.arraycopy(rowGen, 0, b.rowGen, 0, BLOCK);
+			return b;
+		}
+	}
+
+	/*
+	 * Cursor - walks a row of the graph's current blocks, or of a
+	 * snapshot's.
+	 */
+
+	private static class Cursor implements NeighborCursor {
+		private final VersionedGraph owner; // Read owner.blocks, or fixed if null.
+		private final Block[] fixed;
+		private int[] targets, weights;
+		private int degree, e;
+
+		Cursor(VersionedGraph owner, Block[] fixed) {
+			this.owner = owner;
+			this.fixed = fixed;
+		}
+
+		public void start(int v) {
+			Block block = ((owner != null) ? owner.blocks : fixed)[v >> BLOCK_BITS];
+			int i = v & (BLOCK - 1);
+			targets = block.targets[i];
+			weights = block.weights[i];
+			degree = block.degree[i];
+			e = -1;
+		}
+
+		public boolean next() {
+			return ++e < degree;
+		}
+
+		public int vertex() {
+			return targets[e];
+		}
+
+		public int weight() {
+			return weights[e];
+		}
+	}
+
+	/*
+	 * Snapshot - the graph frozen at one version.  Nothing it refers to
+	 * is changed again, so it needs no locking; the mutators throw.
+	 */
+
+	private static final class Snapshot implements Graph {
+		private final Block[] blocks;
+		private final HashMap<String, Integer> labelIndex;
+		private final int size, count, oddCount, zeroCount;
+		private final long version;
+
+		Snapshot(Block[] blocks, HashMap<String, Integer> labelIndex, int size, int count,
+				int oddCount, int zeroCount, long version) {
+			this.blocks = blocks;
+			this.labelIndex = labelIndex;
+			this.size = size;
+			this.count = count;
+			this.oddCount = oddCount;
+			this.zeroCount = zeroCount;
+			this.version = version;
+		}
+
+		public void insertVertex(Vertex newVertex) {
+			throw readOnly();
+		}
+
+		public void insertEdge(String v1, String v2, int wt) {
+			throw readOnly();
+		}
+
+		public Vertex retrieveVertex(String v) {
+			int ind = indexOf(v);
+			return (ind == -1) ? null : vertex(blocks, ind);
+		}
+
+		public int edgeWeight(String v1, String v2) {
+			return weight(blocks, indexOf(v1), indexOf(v2));
+		}
+
+		public void removeVertex(String v) {
+			throw readOnly();
+		}
+
+		public void removeEdge(String v1, String v2) {
+			throw readOnly();
+		}
+
+		public Vertex[] neighbors(Vertex v) {
+			return VersionedGraph.neighbors(blocks, indexOf(v.getLabel()));
+		}
+
+		public NeighborCursor neighborCursor() {
+			return new Cursor(null, blocks);
+		}
+
+		public NeighborCursor inNeighborCursor() {
+			return neighborCursor();
+		}
+
+		public boolean isDirected() {
+			return false;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public int getVertexCount() {
+			return count;
+		}
+
+		public int indexOf(String v) {
+			Integer ind = labelIndex.get(v);
+			return (ind == null) ? -1 : ind;
+		}
+
+		public Vertex vertexAt(int i) {
+			return vertex(blocks, i);
+		}
+
+		public int[] compact() {
+			throw readOnly();
+		}
+
+		public int degree(int v) {
+			return blocks[v >> BLOCK_BITS].degree[v & (BLOCK - 1)];
+		}
+
+		public boolean allEven() {
+			return oddCount == 0 && zeroCount == 0;
+		}
+
+		public long getVersion() {
+			return version;
+		}
+
+		public void clear() {
+			throw readOnly();
+		}
+
+		public boolean isEmpty() {
+			return count == 0;
+		}
+
+		public boolean isFull() {
+			return true; // Nothing more can be inserted.
+		}
+
+		public void showStructure() {
+			show(blocks, size);
+		}
+
+		/*
+		 * reset() - clear the visited flags, which live in the Vertex objects
+		 * every version shares.
+		 */
+
+		public void reset() {
+			VersionedGraph.reset(blocks, size);
+		}
+
+		private static UnsupportedOperationException readOnly() {
+			return new UnsupportedOperationException("A graph snapshot is read-only");
+		}
+	}
+}
@@ -10,6 +10,8 @@ public class Vertex {
 	                           //   flag is used in several common graph algorithms
 	                           //   such as Breadth and Depteh first search as 
 	                           //   well as Dijkstra's Shortest Path Algorithm.
+	private double x, y;       // Optional coordinates of the vertex, used by
+	private boolean located;   //   A* to estimate distances (see EuclideanHeuristic).
 	
 	/*
 	 *    Vertex() constructor - takes a label as an argument.
@@ -30,6 +32,36 @@ public class Vertex {
 		return label;
 	}
 	
+	/*
+	 *   setLocation() - give the vertex coordinates.
+	 */
+	
+	public void setLocation(double x, double y)
+	{
+		this.x = x;
+		this.y = y;
+		located = true;
+	}
+	
+	/*
+	 *   hasLocation() - returns if the vertex has coordinates.
+	 */
+	
+	public boolean hasLocation()
+	{
+		return located;
+	}
+	
+	public double getX()
+	{
+		return x;
+	}
+	
+	public double getY()
+	{
+		return y;
+	}
+	
 	/*
 	 *   visit() - returns if the vertex was visited while
 	 *             also setting the visited flag to true.
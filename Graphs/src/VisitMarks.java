@@ -0,0 +1,84 @@
+/*
+ *    VisitMarks - per-query visited flags for graph traversals.
+ *
+ *    The visited flag on Vertex is shared by every traversal of a graph,
+ *    so two searches at once corrupt each other and each one must first
+ *    reset every vertex.  VisitMarks keeps the flags apart from the graph:
+ *    v is visited when stamp[v] equals the current epoch, so starting a
+ *    new query is one increment rather than an O(V) reset.
+ *
+ *    acquire() and release() recycle instances through a shared pool, so
+ *    many threads can each hold their own marks over one read-only graph
+ *    without allocating an array per query.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class VisitMarks {
+	private static final ConcurrentLinkedQueue<VisitMarks> pool = new ConcurrentLinkedQueue<VisitMarks>();
+
+	private int[] stamp;   // stamp[v] == epoch means v is visited.
+	private int epoch;     // The stamp of the current query.
+
+	/*
+	 *   VisitMarks() constructor - marks for vertex indices 0 .. capacity-1.
+	 */
+
+	public VisitMarks(int capacity) {
+		stamp = new int[capacity];
+		epoch = 1;
+	}
+
+	/*
+	 *   acquire() - take marks for a new query from the pool, or make them.
+	 */
+
+	public static VisitMarks acquire(int capacity) {
+		VisitMarks marks = pool.poll();
+		if (marks == null)
+			return new VisitMarks(capacity);
+
+		marks.begin(capacity);
+		return marks;
+	}
+
+	/*
+	 *   release() - return marks to the pool once a query is done with them.
+	 */
+
+	public static void release(VisitMarks marks) {
+		pool.offer(marks);
+	}
+
+	/*
+	 *   begin() - clear every mark and allow indices 0 .. capacity-1.
+	 */
+
+	public void begin(int capacity) {
+		if (capacity > stamp.length)
+			stamp = new int[Math.max(capacity, stamp.length * 2)];
+		else if (++epoch == 0) {   // The stamps wrapped; clear them for real.
+			Arrays.fill(stamp, 0);
+			epoch = 1;
+		}
+	}
+
+	/*
+	 *   visit() - returns if v was visited while also marking it visited.
+	 */
+
+	public boolean visit(int v) {
+		boolean was = (stamp[v] == epoch);
+		stamp[v] = epoch;
+		return was;
+	}
+
+	/*
+	 *   isVisited() - returns if v is visited without changing the mark.
+	 */
+
+	public boolean isVisited(int v) {
+		return stamp[v] == epoch;
+	}
+}
@@ -5,24 +5,47 @@
  * @description 
  *     WtGraph - implements the Graph interface
  *               for a weighted graph using a vertex list
- *               and an adjacency matrix.
+ *               and an adjacency matrix.  In a directed
+ *               graph adjMatrix[i][j] is the edge from i to j
+ *               alone; otherwise both entries are kept equal.
+ *               A bit matrix mirrors it, one bit per entry, so a
+ *               row can be scanned or combined 64 columns a word.
  */
 
+import java.util.Arrays;
+import java.util.HashMap;
+
 public class WtGraph implements Graph {
 	public static final int DEF_MAX_GRAPH_SIZE = 100;
 	public static final int INFINITE_EDGE_WT = Integer.MAX_VALUE;
 
-	private int size; // The number of vertices in the graph.
+	private int size; // One past the highest vertex slot in use.
+	private int count; // The number of vertices in the graph.
+	private IntList freeSlots; // Slots of removed vertices, reused by
+								// insertVertex until compact() closes them up.
 	private Vertex[] vertexList; // An array containing the grahs vertices.
 	private int[][] adjMatrix; // The adjacency matrix storing the edge weights
 								// between the vertices.
+	private HashMap<String, Integer> labelIndex; // Maps a label to its vertexList
+													// index for O(1) lookup.
+	private long[][] adjBits; // Bit j of row i is set when adjMatrix[i][j] is
+								// an edge; kept in step by setEdge().
+	private long[][] colBits; // When directed, bit i of row j is set when
+								// adjMatrix[i][j] is an edge: the columns.
+	private int[] degree; // The number of neighbors of each vertex, kept up to
+							// date by every change to adjMatrix.
+	private final boolean directed; // Whether each edge runs one way only.
+	private int[] inDegree; // The number of edges into each vertex, when directed.
+	private int oddCount; // The number of vertices of odd degree.
+	private int zeroCount; // The number of vertices with no neighbors.
+	private long version; // Bumped by every change to the vertices or edges.
 
 	/*
 	 * default WtGraph() constructor. - uses the default maximum graph size.
 	 */
 
 	public WtGraph() {
-		setup(DEF_MAX_GRAPH_SIZE); // Set up vertex list and adjacency matrix.
+		this(DEF_MAX_GRAPH_SIZE, false); // Set up vertex list and adjacency matrix.
 	}
 
 	/*
@@ -31,7 +54,17 @@ public class WtGraph implements Graph {
 	 */
 
 	public WtGraph(int maxNumber) {
-		setup(maxNumber); // Set up the vertex list and adjacency matrix.
+		this(maxNumber, false); // Set up the vertex list and adjacency matrix.
+	}
+
+	/*
+	 * WtGraph() constructor. - a graph of up to maxNumber vertices whose edges
+	 * run one way only when directed is set.
+	 */
+
+	public WtGraph(int maxNumber, boolean directed) {
+		this.directed = directed;
+		setup(maxNumber);
 	}
 
 	/*
@@ -41,7 +74,14 @@ public class WtGraph implements Graph {
 	private void setup(int maxNumber) {
 		vertexList = new Vertex[maxNumber];
 		adjMatrix = new int[maxNumber][maxNumber];
+		adjBits = new long[maxNumber][(maxNumber + 63) >>> 6];
+		colBits = new long[directed ? maxNumber : 0][(maxNumber + 63) >>> 6];
+		labelIndex = new HashMap<String, Integer>(maxNumber * 2);
+		degree = new int[maxNumber];
+		inDegree = new int[directed ? maxNumber : 0];
+		freeSlots = new IntList();
 		size = 0;
+		count = 0;
 
 		for (int i = 0; i < maxNumber; i++) // Set all the matrix entries to
 			for (int j = 0; j < maxNumber; j++) // INFINITE_EDGE_WT to indicate
@@ -53,32 +93,56 @@ public class WtGraph implements Graph {
 	 */
 
 	public void insertVertex(Vertex newVertex) {
-		vertexList[size] = newVertex;
-		size++;
+		int slot = freeSlots.isEmpty() ? size++ : freeSlots.removeLast();
+
+		vertexList[slot] = newVertex;
+		labelIndex.put(newVertex.getLabel(), slot);
+		degree[slot] = 0;
+		if (directed)
+			inDegree[slot] = 0;
+		zeroCount++;
+		count++;
+		version++;
 	}
 
 	/*
-	 * allEven() - determines if all the vertices are of even degree.
+	 * allEven() - determines if all the vertices are of even degree.  The
+	 * counts of odd and zero degree vertices are kept as edges change, so
+	 * this is O(1).  A directed graph compares the in and out degree of each
+	 * vertex instead, in O(V).
 	 */
 
 	public boolean allEven() {
-		for (int i = 0; i < size; i++) {
-			if (neighbors(vertexList[i]).length % 2 != 0 
-					|| neighbors(vertexList[i]).length < 2)
-				return false;
-		}
+		if (!directed)
+			return oddCount == 0 && zeroCount == 0;
 
+		for (int i = 0; i < size; i++)
+			if (vertexList[i] != null && (degree[i] == 0 || degree[i] != inDegree[i]))
+				return false;
 		return true;
 	}
 
+	/*
+	 * degree() - return the number of neighbors of the vertex at index v; the
+	 * number of edges out of it if directed.
+	 */
+
+	public int degree(int v) {
+		return degree[v];
+	}
+
 	/*
 	 * insertEdges() - insert a new edge with weight wt between vertices with
 	 * labels v1 and v2.
 	 */
 
 	public void insertEdge(String v1, String v2, int wt) {
-		setEdge(index(v1), index(v2), wt);		// sets adjMatrix[v1][v2]
-		setEdge(index(v2), index(v1), wt);		// sets adjMatrix[v2][v1]
+		int i = indexOf(v1);
+		int j = indexOf(v2);
+		setEdge(i, j, wt);		// sets adjMatrix[v1][v2]
+		if (!directed)
+			setEdge(j, i, wt);	// sets adjMatrix[v2][v1]
+		version++;
 	}
 
 	/*
@@ -86,12 +150,8 @@ public class WtGraph implements Graph {
 	 * If no such vertex exists, return null.
 	 */
 	public Vertex retrieveVertex(String v) {
-		for (int i = 0; i < size; i++) {
-			if (vertexList[i] != null && vertexList[i].getLabel().equals(v))
-				return vertexList[i];
-		}
-
-		return null;
+		int ind = indexOf(v);
+		return (ind == -1) ? null : vertexList[ind];
 	}
 
 	/*
@@ -100,66 +160,140 @@ public class WtGraph implements Graph {
 	 */
 
 	public int edgeWeight(String v1, String v2) {
-		return getEdge(index(v1), index(v2));
+		return getEdge(indexOf(v1), indexOf(v2));
 	}
 
 	/*
 	 * removeVertex() - remove from the graph the vertex with label v. This
 	 * involves removing the label from the vertex list as well as removing the
-	 * edges the vertex was part of.
+	 * edges the vertex was part of.  The slot is left dead rather than
+	 * shifting the matrix: no other vertex changes index, and only the set
+	 * bits of the vertex's row (and, if directed, its column) are visited,
+	 * so O(V/64 + degree).
 	 */
 	public void removeVertex(String v) {
-		int ind = index(v); // Get the vertex's array index.
+		int ind = indexOf(v); // Get the vertex's array index.
 
 		if (ind == -1) // Vertex not in graph.
 			return;
 
-		// Move vertices over to fill the gap in the vertex list.
-		for (int i = ind + 1; i < size; i++)
-			vertexList[i - 1] = vertexList[i];
-
-		// Move entries in the adjacency matrix to fill the gap.
-		
-		// Move Quadrant I Over
-		for (int i = ind + 1; i < size; i++) {
-			for (int j = 0; j < ind; j++) {
-				adjMatrix[i - 1][j] = adjMatrix[i][j];
+		int words = (size + 63) >>> 6;
+		for (int w = 0; w < words; w++) // Its edges out, and in if undirected.
+			for (long bits = adjBits[ind][w]; bits != 0; bits &= bits - 1) {
+				int j = (w << 6) + Long.numberOfTrailingZeros(bits);
+				setEdge(ind, j, INFINITE_EDGE_WT);
+				if (!directed)
+					setEdge(j, ind, INFINITE_EDGE_WT);
 			}
-		}
-		// Move Quadrant III Up
-		for (int i = 0; i < ind; i++) {
-			for (int j = ind + 1; j < size; j++) {
-				adjMatrix[i][j - 1] = adjMatrix[i][j];
+		if (directed)
+			for (int w = 0; w < words; w++) // Its edges in.
+				for (long bits = colBits[ind][w]; bits != 0; bits &= bits - 1)
+					setEdge((w << 6) + Long.numberOfTrailingZeros(bits), ind, INFINITE_EDGE_WT);
+		countDegree(0, -1); // The slot no longer counts as a vertex.
+
+		labelIndex.remove(v);
+		vertexList[ind] = null;
+		freeSlots.add(ind);
+		count--;
+		version++;
+	}
+
+	/*
+	 * compact() - move the vertices down over the dead slots left by
+	 * removeVertex(), keeping their order, and return remap where remap[i]
+	 * is the new index of the vertex at old index i, or -1 if slot i was
+	 * dead.  O(V^2) for the matrix, so run it when convenient rather than
+	 * after every removal.
+	 */
+
+	public int[] compact() {
+		int[] remap = new int[size];
+		int[] old = new int[count]; // old[k] is the old index of new index k.
+		int live = 0;
+		for (int i = 0; i < size; i++)
+			if (vertexList[i] == null)
+				remap[i] = -1;
+			else {
+				old[live] = i;
+				remap[i] = live++;
 			}
+
+		// old[k] >= k, so reading ahead of the writes is safe in place.
+		for (int k = 0; k < live; k++) {
+			int[] row = adjMatrix[old[k]];
+			for (int c = 0; c < live; c++)
+				adjMatrix[k][c] = row[old[c]];
+			vertexList[k] = vertexList[old[k]];
+			degree[k] = degree[old[k]];
+			if (directed)
+				inDegree[k] = inDegree[old[k]];
+			labelIndex.put(vertexList[k].getLabel(), k);
 		}
-		// Move Quadrant IV Up and Over
-		for (int i = ind + 1; i < size; i++) {
-			for (int j = ind + 1; j < size; j++) {
-				adjMatrix[i - 1][j - 1] = adjMatrix[i][j];
+		for (int i = 0; i < size && directed; i++)
+			Arrays.fill(colBits[i], 0L);
+		for (int i = 0; i < size; i++) {
+			if (i >= live) {
+				vertexList[i] = null;
+				Arrays.fill(adjMatrix[i], 0, size, INFINITE_EDGE_WT);
 			}
+			else
+				Arrays.fill(adjMatrix[i], live, size, INFINITE_EDGE_WT);
+
+			Arrays.fill(adjBits[i], 0L); // Rebuild the bits from the moved rows.
+			if (i < live)
+				for (int j = 0; j < live; j++)
+					if (adjMatrix[i][j] != INFINITE_EDGE_WT) {
+						adjBits[i][j >>> 6] |= 1L << j;
+						if (directed)
+							colBits[j][i >>> 6] |= 1L << i;
+					}
 		}
 
-		vertexList[size - 1] = null;
-
-		size = size - 1; // We have one fewer vertices.
+		freeSlots.clear();
+		size = live;
+		version++; // Indices changed.
+		return remap;
 	}
 
 	/*
-	 * getSize() - return the number of vertices in the graph.
+	 * getSize() - return the number of vertex slots, live or dead.  Vertex
+	 * indices run 0 .. getSize()-1.
 	 */
 
 	public int getSize() {
 		return size;
 	}
 
+	/*
+	 * getVertexCount() - return the number of vertices in the graph.
+	 */
+
+	public int getVertexCount() {
+		return count;
+	}
+
+	/*
+	 * getVersion() - return a counter bumped by every insertion, removal,
+	 * compact() and clear(), so a result computed from the graph can tell in
+	 * O(1) whether it is stale.
+	 */
+
+	public long getVersion() {
+		return version;
+	}
+
 	/*
 	 * removeEdge() - remove the edge between the vertices with labels v1 and
 	 * v2.
 	 */
 
 	public void removeEdge(String v1, String v2) {
-		setEdge(index(v1), index(v2), INFINITE_EDGE_WT);	// sets adjMatrix[v1][v2] = -1
-		setEdge(index(v2), index(v1), INFINITE_EDGE_WT);	// sets adjMatrix[v1][v2] = -1
+		int i = indexOf(v1);
+		int j = indexOf(v2);
+		setEdge(i, j, INFINITE_EDGE_WT);	// sets adjMatrix[v1][v2] = -1
+		if (!directed)
+			setEdge(j, i, INFINITE_EDGE_WT);	// sets adjMatrix[v1][v2] = -1
+		version++;
 	}
 
 	/*
@@ -178,7 +312,17 @@ public class WtGraph implements Graph {
 			vertexList[i] = null;	// sets all indexes to null
 			for (int j = 0; j < vertexList.length; j++)
 				adjMatrix[i][j] = INFINITE_EDGE_WT;	// sets all entries to '-'
+			Arrays.fill(adjBits[i], 0L);
+			if (directed)
+				Arrays.fill(colBits[i], 0L);
 		}
+		labelIndex.clear();
+		freeSlots.clear();
+		size = 0;
+		count = 0;
+		oddCount = 0;
+		zeroCount = 0;
+		version++;
 	}
 
 	/*
@@ -187,7 +331,8 @@ public class WtGraph implements Graph {
 
 	public void reset() {
 		for (int i = 0; i < size; i++)
-			vertexList[i].reset();
+			if (vertexList[i] != null)
+				vertexList[i].reset();
 	}
 
 	/*
@@ -195,11 +340,11 @@ public class WtGraph implements Graph {
 	 */
 
 	public boolean isEmpty() {
-		return (size == 0);
+		return (count == 0);
 	}
 
 	public boolean isFull() {
-		return (size == vertexList.length);
+		return (count == vertexList.length);
 	}
 
 	/*
@@ -246,9 +391,9 @@ public class WtGraph implements Graph {
 		//
 		// Vertex [] neighbor = new Vertex[count];
 		//
-		int vertex = index(v.getLabel());
+		int vertex = indexOf(v.getLabel());
 		int count = 0;
-		for (int i = 0; i < vertexList.length; i++) {
+		for (int i = 0; i < size; i++) {
 			if (adjMatrix[vertex][i] != INFINITE_EDGE_WT)
 				count++;
 		}
@@ -256,7 +401,7 @@ public class WtGraph implements Graph {
 		Vertex[] neighbor = new Vertex[count];
 		count = 0;
 
-		for (int j = 0; j < vertexList.length; j++) {
+		for (int j = 0; j < size; j++) {
 			if (adjMatrix[vertex][j] != INFINITE_EDGE_WT) {
 				neighbor[count] = vertexList[j];
 				count++;
@@ -267,17 +412,119 @@ public class WtGraph implements Graph {
 	}
 
 	/*
-	 * index() - return the vertexList index of the vertex with label v. If the
-	 * vertex doesn't exist return -1.
+	 * neighborCursor() - return a cursor that scans a row of the adjacency
+	 * matrix for the neighbors of a vertex, allocating nothing per row.
 	 */
 
-	private int index(String v) {
-		for (int i = 0; i < vertexList.length; i++) {
-			if (vertexList[i].getLabel().equals(v))
-				return i;
+	public NeighborCursor neighborCursor() {
+		return new RowCursor();
+	}
+
+	/*
+	 * inNeighborCursor() - return a cursor that scans a column of the matrix
+	 * for the vertices with an edge to a vertex.
+	 */
+
+	public NeighborCursor inNeighborCursor() {
+		return directed ? new ColumnCursor() : new RowCursor();
+	}
+
+	public boolean isDirected() {
+		return directed;
+	}
+
+	private class ColumnCursor implements NeighborCursor {
+		private int col; // The adjacency matrix column being scanned.
+		private int row; // The row of the current neighbor.
+
+		public void start(int v) {
+			col = v;
+			row = -1;
+		}
+
+		public boolean next() {
+			while (++row < size)
+				if (adjMatrix[row][col] != INFINITE_EDGE_WT)
+					return true;
+			return false;
+		}
+
+		public int vertex() {
+			return row;
+		}
+
+		public int weight() {
+			return adjMatrix[row][col];
+		}
+	}
+
+	/*
+	 * RowCursor - finds the neighbors in a row through its bits, skipping 64
+	 * empty columns at a time, so a sparse row costs O(V / 64 + degree).
+	 */
+
+	private class RowCursor implements NeighborCursor {
+		private int[] row; // The adjacency matrix row being scanned.
+		private long[] bits; // Its bits.
+		private long word; // The bits of bits[w] not yet returned.
+		private int w; // The word being scanned.
+		private int col; // The column of the current neighbor.
+
+		public void start(int v) {
+			row = adjMatrix[v];
+			bits = adjBits[v];
+			w = 0;
+			word = (bits.length > 0) ? bits[0] : 0;
+			col = -1;
 		}
 
-		return -1;
+		public boolean next() {
+			while (word == 0) {
+				if (++w >= ((size + 63) >>> 6))
+					return false;
+				word = bits[w];
+			}
+			col = (w << 6) + Long.numberOfTrailingZeros(word);
+			word &= word - 1; // Clear the lowest bit.
+			return true;
+		}
+
+		public int vertex() {
+			return col;
+		}
+
+		public int weight() {
+			return row[col];
+		}
+	}
+
+	/*
+	 * indexOf() - return the vertexList index of the vertex with label v. If the
+	 * vertex doesn't exist return -1.  A hash lookup, so O(1).
+	 */
+
+	public int indexOf(String v) {
+		Integer ind = labelIndex.get(v);
+		return (ind == null) ? -1 : ind;
+	}
+
+	/*
+	 * vertexAt() - return the Vertex at vertexList index i, or null if the
+	 * slot is dead.
+	 */
+
+	public Vertex vertexAt(int i) {
+		return vertexList[i];
+	}
+
+	/*
+	 * adjacencyBits() - return the bit row of the vertex at index v: bit j
+	 * is set when there is an edge to j.  Words past getSize() are zero.
+	 * It is the graph's own row, for BitTraversal to read, not change.
+	 */
+
+	long[] adjacencyBits(int v) {
+		return adjBits[v];
 	}
 
 	/*
@@ -285,7 +532,7 @@ public class WtGraph implements Graph {
 	 * array indices row and col.
 	 */
 
-	private int getEdge(int row, int col) {
+	int getEdge(int row, int col) {
 		return adjMatrix[row][col];
 	}
 
@@ -295,7 +542,43 @@ public class WtGraph implements Graph {
 	 */
 
 	private void setEdge(int row, int col, int wt) {
+		int old = adjMatrix[row][col];
 		adjMatrix[row][col] = wt;
+
+		if (old == INFINITE_EDGE_WT && wt != INFINITE_EDGE_WT) {
+			adjBits[row][col >>> 6] |= 1L << col;
+			adjustDegree(row, 1); // A new neighbor.
+			if (directed) {
+				colBits[col][row >>> 6] |= 1L << row;
+				inDegree[col]++;
+			}
+		}
+		else if (old != INFINITE_EDGE_WT && wt == INFINITE_EDGE_WT) {
+			adjBits[row][col >>> 6] &= ~(1L << col);
+			adjustDegree(row, -1); // A lost neighbor.
+			if (directed) {
+				colBits[col][row >>> 6] &= ~(1L << row);
+				inDegree[col]--;
+			}
+		}
+	}
+
+	/*
+	 * adjustDegree() - add change to the degree of vertex v, keeping the odd
+	 * and zero degree counts in step.
+	 */
+
+	private void adjustDegree(int v, int change) {
+		countDegree(degree[v], -1);
+		degree[v] += change;
+		countDegree(degree[v], 1);
+	}
+
+	private void countDegree(int d, int change) {
+		if (d % 2 != 0)
+			oddCount += change;
+		if (d == 0)
+			zeroCount += change;
 	}
 
 }